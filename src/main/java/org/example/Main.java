@@ -2,19 +2,29 @@ package org.example;
 
 import org.example.entities.Manufacturer;
 import org.example.entities.Souvenir;
+import org.example.services.CatalogCursor;
+import org.example.services.ManufacturerSnapshot;
 import org.example.services.SouvenirsService;
 import org.example.storage.DataManager;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Objects;
 import java.util.Scanner;
+import java.util.function.Consumer;
 
 public class Main {
 
+    private static final int PAGE_SIZE = 10;
+
+    // In paging mode, options 3, 5, 6, 7 and 9 show one page at a time through a cursor
+    private static boolean paging = false;
+
     public static void main(String[] args) throws Exception {
         Scanner scanner = new Scanner(System.in);
         DataManager dataManager = new DataManager("souvenirs_data.txt");
         SouvenirsService souvenirsService = new SouvenirsService(dataManager);
+        System.out.println(souvenirsService.start());
 
         // To fill the file with mock data
         // it's needed to have EMPTY file
@@ -34,6 +44,7 @@ public class Main {
             System.out.println("10. Edit Manufacturer");
             System.out.println("11. Edit Souvenir");
             System.out.println("12. Remove Manufacturer and Souvenirs");
+            System.out.println("13. Turn paging " + (paging ? "off" : "on"));
 
             System.out.print("Your choice: ");
             int choice = 3;
@@ -47,7 +58,7 @@ public class Main {
             switch (choice) {
                 case 1 -> addManufacturer(scanner, souvenirsService);
                 case 2 -> addSouvenir(scanner, souvenirsService);
-                case 3 -> souvenirsService.displayAllSouvenirsAndManufacturers();
+                case 3 -> displayAllManufacturersWithSouvenirs(scanner, souvenirsService);
                 case 4 -> {
                     System.out.println("Goodbye!\nExiting...");
                     System.exit(0);
@@ -56,10 +67,14 @@ public class Main {
                 case 6 -> displaySouvenirsByCountry(scanner, souvenirsService);
                 case 7 -> displayManufacturersByPrice(scanner, souvenirsService);
                 case 8 -> displayManufacturersOfSouvenirInYear(scanner, souvenirsService);
-                case 9 -> displaySouvenirsOfCurrentYear(souvenirsService);
+                case 9 -> displaySouvenirsOfCurrentYear(scanner, souvenirsService);
                 case 10 -> editManufacturer(scanner, souvenirsService);
                 case 11 -> editSouvenir(scanner, souvenirsService);
                 case 12 -> removeManufacturerAndSouvenirs(scanner, souvenirsService);
+                case 13 -> {
+                    paging = !paging;
+                    System.out.println("Paging is " + (paging ? "on: " + PAGE_SIZE + " results per page." : "off."));
+                }
                 default -> System.out.println("Invalid choice. Please enter a valid option.");
             }
         }
@@ -111,6 +126,11 @@ public class Main {
     private static void displaySouvenirsByManufacturer(Scanner scanner, SouvenirsService souvenirsService) {
         System.out.println("Enter Manufacturer name:");
         String manufacturerName = scanner.nextLine();
+        if (paging) {
+            displayPages(scanner, souvenirsService.cursorSouvenirsByManufacturerName(manufacturerName),
+                    s -> System.out.println("-----------\n" + s));
+            return;
+        }
         souvenirsService.findSouvenirsByManufacturerName(manufacturerName)
                 .forEach(s->System.out.println("-----------\n" + s));
     }
@@ -118,6 +138,11 @@ public class Main {
     private static void displaySouvenirsByCountry(Scanner scanner, SouvenirsService souvenirsService) {
         System.out.println("Enter Manufacturer country:");
         String country = scanner.nextLine();
+        if (paging) {
+            displayPages(scanner, souvenirsService.cursorSouvenirsByManufacturerCountry(country),
+                    s -> System.out.println("-----------\n" + s));
+            return;
+        }
         souvenirsService.findSouvenirsByManufacturerCountry(country)
                 .forEach(s->System.out.println("-----------\n" + s));
     }
@@ -125,14 +150,29 @@ public class Main {
     private static void displayManufacturersByPrice(Scanner scanner, SouvenirsService souvenirsService) {
         System.out.println("Enter maximum price:");
         double priceLimit = scanner.nextDouble();
+        scanner.nextLine();
+        if (paging) {
+            displayPages(scanner, souvenirsService.cursorManufacturersByPriceLowerThan(priceLimit),
+                    m -> System.out.println("-----------\n" + m));
+            return;
+        }
         souvenirsService.findManufacturersByPriceLowerThan(priceLimit)
                 .forEach(m->System.out.println("-----------\n" + m));
     }
 
     private static void displayAllManufacturersWithSouvenirs(Scanner scanner, SouvenirsService souvenirsService) {
+        if (paging) {
+            displayPages(scanner, souvenirsService.cursorAllManufacturers(), Main::displayManufacturerWithSouvenirs);
+            return;
+        }
         souvenirsService.displayAllSouvenirsAndManufacturers();
     }
 
+    private static void displayManufacturerWithSouvenirs(ManufacturerSnapshot manufacturer) {
+        System.out.println("\n-------------\n" + manufacturer + "\nSouvenir list:");
+        manufacturer.getSouvenirs().forEach(s -> System.out.println("\t" + s));
+    }
+
     private static void displayManufacturersOfSouvenirInYear(Scanner scanner, SouvenirsService souvenirsService) {
         System.out.println("Enter Souvenir name:");
         String souvenirName = scanner.nextLine();
@@ -143,11 +183,36 @@ public class Main {
                 .forEach(m->System.out.println("-----------\n" + m));
     }
 
-    private static void displaySouvenirsOfCurrentYear(SouvenirsService souvenirsService) {
+    private static void displaySouvenirsOfCurrentYear(Scanner scanner, SouvenirsService souvenirsService) {
+        if (paging) {
+            displayPages(scanner, souvenirsService.cursorSouvenirsByReleaseDate(LocalDate.now().getYear()),
+                    s -> System.out.println("-----------\n" + s));
+            return;
+        }
         souvenirsService.findSouvenirsByReleaseDate(LocalDate.now().getYear())
                 .forEach(m->System.out.println("-----------\n" + m));
     }
 
+    private static <T> void displayPages(Scanner scanner, CatalogCursor<T> cursor, Consumer<T> display) {
+        List<T> page = cursor.nextPage(PAGE_SIZE);
+        if (page.isEmpty()) {
+            System.out.println("\n-------------\n(Empty)");
+            return;
+        }
+        while (true) {
+            page.forEach(display);
+            if (!cursor.hasNext()) {
+                System.out.println("\n(" + cursor.getPosition() + " results)");
+                return;
+            }
+            System.out.print("\n-- Shown " + cursor.getPosition() + ". Press Enter for more, q to stop: ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                return;
+            }
+            page = cursor.nextPage(PAGE_SIZE);
+        }
+    }
+
     private static void removeManufacturerAndSouvenirs(Scanner scanner, SouvenirsService souvenirsService) {
         System.out.println("Enter Manufacturer name to delete:");
         String manufacturerNameToDelete = scanner.nextLine();
@@ -183,6 +248,7 @@ public class Main {
 
     private static void updateManufacturerName(Scanner scanner, SouvenirsService souvenirsService, String manufacturerName) {
         System.out.println("Enter new manufacturer name:");
+        scanner.nextLine();
         String newManufacturerName = scanner.nextLine();
         souvenirsService.updateManufacturerName(manufacturerName, newManufacturerName);
         System.out.println("----------\nEdited manufacturer:\n"+souvenirsService.findManufacturerByName(newManufacturerName));
@@ -190,6 +256,7 @@ public class Main {
 
     private static void updateManufacturerCountry(Scanner scanner, SouvenirsService souvenirsService, String manufacturerName) {
         System.out.println("Enter new manufacturer country:");
+        scanner.nextLine();
         String newManufacturerCountry = scanner.nextLine();
         System.out.println("New country: " + newManufacturerCountry);
         souvenirsService.updateManufacturerCountry(manufacturerName, newManufacturerCountry);
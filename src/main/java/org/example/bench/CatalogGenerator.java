@@ -0,0 +1,85 @@
+package org.example.bench;
+
+import org.example.entities.Manufacturer;
+import org.example.entities.Souvenir;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates synthetic catalogs for benchmarks. The text fields repeat the way real manufacturer
+ * details do, so compression and name-matching results are representative.
+ */
+public final class CatalogGenerator {
+
+    private static final String[] COUNTRIES = {"USA", "France", "Japan", "Italy", "Spain", "Germany", "Ukraine", "Brazil"};
+    private static final String[] ITEMS = {"Mug", "Keychain", "Figurine", "Magnet", "Postcard", "Puzzle", "Cap", "Fan", "Canvas", "T-Shirt"};
+    private static final String[] CONTACTS = {"John Doe", "Jane Smith", "Pierre Dupont", "Marie Leclerc", "Takeshi Yamada", "Yuki Tanaka"};
+
+    private CatalogGenerator() {
+    }
+
+    /**
+     * Generates a catalog.
+     *
+     * @param manufacturers          The number of manufacturers.
+     * @param souvenirsPerManufacturer The number of souvenirs per manufacturer.
+     * @param seed                   The random seed, so runs are repeatable.
+     * @return The generated manufacturers with their souvenirs.
+     */
+    public static List<Manufacturer> generate(int manufacturers, int souvenirsPerManufacturer, long seed) {
+        Random random = new Random(seed);
+        LocalDateTime now = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0).withNano(0);
+        List<Manufacturer> catalog = new ArrayList<>(manufacturers);
+        try {
+            for (int m = 0; m < manufacturers; m++) {
+                String country = COUNTRIES[random.nextInt(COUNTRIES.length)];
+                Manufacturer manufacturer = new Manufacturer(manufacturerName(m), country);
+                String address = (100 + random.nextInt(900)) + " Market St, " + country + "\n\t\tPhone: 555-" + (1000 + random.nextInt(9000));
+                for (int s = 0; s < souvenirsPerManufacturer; s++) {
+                    String name = souvenirName(m, s);
+                    String details = address + "\n\t\tContact: " + CONTACTS[random.nextInt(CONTACTS.length)];
+                    LocalDateTime releaseDate = now.minusDays(random.nextInt(365 * 25));
+                    double price = Math.round((1 + random.nextDouble() * 199) * 100) / 100.0;
+                    manufacturer.addSouvenir(new Souvenir(name, details, releaseDate, price));
+                }
+                catalog.add(manufacturer);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Can't generate catalog", e);
+        }
+        return catalog;
+    }
+
+    /**
+     * Gets the name of the generated manufacturer with the given index.
+     *
+     * @param index The manufacturer index.
+     * @return The manufacturer name.
+     */
+    public static String manufacturerName(int index) {
+        return "Manufacturer " + index;
+    }
+
+    /**
+     * Gets the name of a generated souvenir.
+     *
+     * @param manufacturerIndex The manufacturer index.
+     * @param index             The souvenir index within the manufacturer.
+     * @return The souvenir name.
+     */
+    public static String souvenirName(int manufacturerIndex, int index) {
+        return ITEMS[(manufacturerIndex + index) % ITEMS.length] + " " + manufacturerIndex + "-" + index;
+    }
+
+    /**
+     * Gets the countries used by the generator.
+     *
+     * @return The countries.
+     */
+    public static String[] countries() {
+        return COUNTRIES.clone();
+    }
+}
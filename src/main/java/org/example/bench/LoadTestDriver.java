@@ -0,0 +1,383 @@
+package org.example.bench;
+
+import org.example.entities.Souvenir;
+import org.example.services.SouvenirsService;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a weighted mix of queries and mutations against a {@link SouvenirsService} holding a generated
+ * catalog, from several threads, and reports throughput, latency percentiles and errors per operation.
+ * Runs over a list of thread counts show where throughput stops scaling.
+ * <p>
+ * In closed-loop mode every thread issues its next operation as soon as the previous one returns. In open-loop
+ * mode operations are scheduled at a fixed total arrival rate, whether or not earlier ones have finished, and
+ * latency is measured from the scheduled start, so time spent queueing behind a stall is counted.
+ * <p>
+ * The service reports mutations on standard output; that output is discarded while the load runs.
+ * <p>
+ * Usage: {@code LoadTestDriver [closed|open] [threads, e.g. 1,2,4,8] [seconds] [opsPerSecond (open only)]
+ * [manufacturers] [souvenirsPerManufacturer] [mix, e.g. FIND_SOUVENIR=50,UPDATE_PRICE=10]}
+ */
+public class LoadTestDriver {
+
+    /**
+     * The operations of the mix, with their default weights.
+     */
+    enum Operation {
+        FIND_SOUVENIR(35),
+        FIND_BY_MANUFACTURER(20),
+        FIND_BY_COUNTRY(5),
+        FIND_BY_PRICE(10),
+        ADD_SOUVENIR(10),
+        UPDATE_PRICE(19),
+        REMOVE_MANUFACTURER(1);
+
+        private final int defaultWeight;
+
+        Operation(int defaultWeight) {
+            this.defaultWeight = defaultWeight;
+        }
+    }
+
+    private final SouvenirsService service;
+    private final int manufacturers;
+    private final int souvenirsPerManufacturer;
+    private final Operation[] schedule;
+    private final String[] countries = CatalogGenerator.countries();
+    private final AtomicInteger addedSouvenirs = new AtomicInteger();
+
+    LoadTestDriver(SouvenirsService service, int manufacturers, int souvenirsPerManufacturer, Map<Operation, Integer> mix) {
+        this.service = service;
+        this.manufacturers = manufacturers;
+        this.souvenirsPerManufacturer = souvenirsPerManufacturer;
+        List<Operation> slots = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                slots.add(operation);
+            }
+        });
+        if (slots.isEmpty()) {
+            throw new IllegalArgumentException("The operation mix has no weights");
+        }
+        this.schedule = slots.toArray(new Operation[0]);
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean openLoop = args.length > 0 && args[0].equalsIgnoreCase("open");
+        int[] threadCounts = args.length > 1
+                ? Arrays.stream(args[1].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[] {1, 2, 4, 8};
+        double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 5;
+        double opsPerSecond = args.length > 3 ? Double.parseDouble(args[3]) : 20_000;
+        int manufacturers = args.length > 4 ? Integer.parseInt(args[4]) : 2_000;
+        int souvenirsPerManufacturer = args.length > 5 ? Integer.parseInt(args[5]) : 20;
+        Map<Operation, Integer> mix = args.length > 6 ? parseMix(args[6]) : defaultMix();
+
+        PrintStream console = System.out;
+        for (int threads : threadCounts) {
+            Path dir = Files.createTempDirectory("load-test");
+            try {
+                SouvenirsService service = new SouvenirsService(dir.resolve("catalog.dat").toString());
+                service.save(CatalogGenerator.generate(manufacturers, souvenirsPerManufacturer, 42));
+                service.awaitIndexes();
+                LoadTestDriver driver = new LoadTestDriver(service, manufacturers, souvenirsPerManufacturer, mix);
+
+                System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                Report report;
+                try {
+                    report = openLoop ? driver.runOpenLoop(threads, seconds, opsPerSecond) : driver.runClosedLoop(threads, seconds);
+                } finally {
+                    System.setOut(console);
+                }
+                console.printf("%n%s loop, %d threads, %.1f s, %d manufacturers x %d souvenirs%s%n",
+                        openLoop ? "open" : "closed", threads, seconds, manufacturers, souvenirsPerManufacturer,
+                        openLoop ? String.format(", %.0f ops/s offered", opsPerSecond) : "");
+                report.print(console);
+            } finally {
+                deleteRecursively(dir);
+            }
+        }
+    }
+
+    /**
+     * Runs the mix with every thread issuing operations back to back.
+     *
+     * @param threads The number of threads.
+     * @param seconds How long to run.
+     * @return The measurements.
+     */
+    Report runClosedLoop(int threads, double seconds) throws InterruptedException {
+        long end = System.nanoTime() + (long) (seconds * 1e9);
+        return run(threads, seconds, recorder -> {
+            while (System.nanoTime() < end) {
+                long start = System.nanoTime();
+                execute(recorder, start);
+            }
+        });
+    }
+
+    /**
+     * Runs the mix at a fixed arrival rate shared by all threads. Each operation's latency counts from the time
+     * it was scheduled to start, so a stalled service shows up as latency rather than as fewer requests.
+     *
+     * @param threads      The number of threads.
+     * @param seconds      How long to run.
+     * @param opsPerSecond The total arrival rate.
+     * @return The measurements.
+     */
+    Report runOpenLoop(int threads, double seconds, double opsPerSecond) throws InterruptedException {
+        long intervalNanos = Math.max(1, (long) (1e9 / opsPerSecond));
+        long total = (long) (seconds * opsPerSecond);
+        AtomicLong tickets = new AtomicLong();
+        long origin = System.nanoTime();
+        return run(threads, seconds, recorder -> {
+            long ticket;
+            while ((ticket = tickets.getAndIncrement()) < total) {
+                long scheduled = origin + ticket * intervalNanos;
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                execute(recorder, scheduled);
+            }
+        });
+    }
+
+    private interface Worker {
+        void run(Recorder recorder);
+    }
+
+    private Report run(int threads, double seconds, Worker worker) throws InterruptedException {
+        List<Recorder> recorders = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Recorder recorder = new Recorder();
+            recorders.add(recorder);
+            Thread thread = new Thread(() -> {
+                try {
+                    worker.run(recorder);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-test-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        double elapsed = Math.max(seconds, (System.nanoTime() - start) / 1e9);
+        return Report.merge(recorders, elapsed);
+    }
+
+    private void execute(Recorder recorder, long start) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Operation operation = schedule[random.nextInt(schedule.length)];
+        int m = random.nextInt(manufacturers);
+        String manufacturerName = CatalogGenerator.manufacturerName(m);
+        boolean failed = false;
+        try {
+            switch (operation) {
+                case FIND_SOUVENIR -> service.findSouvenirByManufacturerAndName(manufacturerName,
+                        CatalogGenerator.souvenirName(m, random.nextInt(souvenirsPerManufacturer)));
+                case FIND_BY_MANUFACTURER -> service.findSouvenirsByManufacturerName(manufacturerName);
+                case FIND_BY_COUNTRY -> service.findSouvenirsByManufacturerCountry(countries[random.nextInt(countries.length)]);
+                case FIND_BY_PRICE -> service.findSouvenirsByPriceLowerThan(1 + random.nextInt(5));
+                case ADD_SOUVENIR -> service.addSouvenir(manufacturerName, new Souvenir("Load " + addedSouvenirs.incrementAndGet(),
+                        "Load test", LocalDateTime.now(), 1 + random.nextInt(200)));
+                case UPDATE_PRICE -> service.updateSouvenirPrice(manufacturerName,
+                        CatalogGenerator.souvenirName(m, random.nextInt(souvenirsPerManufacturer)), 1 + random.nextInt(200));
+                case REMOVE_MANUFACTURER -> service.removeManufacturerAndSouvenirs(manufacturerName);
+            }
+        } catch (Exception e) {
+            failed = true;
+        }
+        recorder.record(operation, System.nanoTime() - start, failed);
+    }
+
+    private static Map<Operation, Integer> defaultMix() {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            mix.put(operation, operation.defaultWeight);
+        }
+        return mix;
+    }
+
+    private static Map<Operation, Integer> parseMix(String text) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : text.split(",")) {
+            String[] pair = part.split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected OPERATION=weight, got: " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight can't be negative: " + part);
+            }
+            mix.put(Operation.valueOf(pair[0].trim().toUpperCase()), weight);
+        }
+        return mix;
+    }
+
+    private static void deleteRecursively(Path dir) throws Exception {
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    /**
+     * Per-thread measurements, so recording never contends between threads.
+     */
+    private static class Recorder {
+
+        private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+        private final long[] errors = new long[Operation.values().length];
+
+        void record(Operation operation, long nanos, boolean failed) {
+            latencies.computeIfAbsent(operation, o -> new LatencyHistogram()).record(nanos);
+            if (failed) {
+                errors[operation.ordinal()]++;
+            }
+        }
+    }
+
+    /**
+     * The merged measurements of a run.
+     */
+    static final class Report {
+
+        private final Map<Operation, LatencyHistogram> latencies;
+        private final long[] errors;
+        private final double seconds;
+
+        private Report(Map<Operation, LatencyHistogram> latencies, long[] errors, double seconds) {
+            this.latencies = latencies;
+            this.errors = errors;
+            this.seconds = seconds;
+        }
+
+        static Report merge(List<Recorder> recorders, double seconds) {
+            Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+            long[] errors = new long[Operation.values().length];
+            for (Recorder recorder : recorders) {
+                recorder.latencies.forEach((operation, histogram) ->
+                        latencies.computeIfAbsent(operation, o -> new LatencyHistogram()).add(histogram));
+                for (int i = 0; i < errors.length; i++) {
+                    errors[i] += recorder.errors[i];
+                }
+            }
+            return new Report(latencies, errors, seconds);
+        }
+
+        void print(PrintStream out) {
+            out.printf("%-22s %10s %12s %12s %12s %12s %12s %8s%n", "operation", "count", "ops/s",
+                    "p50 (us)", "p99 (us)", "p99.9 (us)", "max (us)", "errors");
+            LatencyHistogram all = new LatencyHistogram();
+            long allErrors = 0;
+            for (Map.Entry<Operation, LatencyHistogram> entry : latencies.entrySet()) {
+                print(out, entry.getKey().name(), entry.getValue(), errors[entry.getKey().ordinal()]);
+                all.add(entry.getValue());
+                allErrors += errors[entry.getKey().ordinal()];
+            }
+            print(out, "TOTAL", all, allErrors);
+        }
+
+        private void print(PrintStream out, String name, LatencyHistogram histogram, long errors) {
+            out.printf("%-22s %10d %12.0f %12.1f %12.1f %12.1f %12.1f %8d%n", name, histogram.count(),
+                    histogram.count() / seconds, histogram.percentile(50) / 1e3, histogram.percentile(99) / 1e3,
+                    histogram.percentile(99.9) / 1e3, histogram.max() / 1e3, errors);
+        }
+    }
+
+    /**
+     * Latency histogram with log-linear buckets: each power of two is split into 64 buckets,
+     * so percentiles are accurate to about 1.6% at a fixed size, however many values are recorded.
+     */
+    static final class LatencyHistogram {
+
+        private static final int SUB_BUCKET_BITS = 6;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        private final long[] counts = new long[(64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+        private long count;
+        private long max;
+
+        void record(long nanos) {
+            long value = Math.max(0, nanos);
+            counts[index(value)]++;
+            count++;
+            max = Math.max(max, value);
+        }
+
+        void add(LatencyHistogram other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            count += other.count;
+            max = Math.max(max, other.max);
+        }
+
+        long count() {
+            return count;
+        }
+
+        long max() {
+            return max;
+        }
+
+        /**
+         * Gets the value at a percentile, as the upper bound of the bucket it falls in.
+         *
+         * @param percentile The percentile, from 0 to 100.
+         * @return The latency in nanoseconds, or 0 if nothing was recorded.
+         */
+        long percentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(max, upperBound(i));
+                }
+            }
+            return max;
+        }
+
+        private static int index(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+            return shift * SUB_BUCKETS + (int) (value >>> shift);
+        }
+
+        private static long upperBound(int index) {
+            if (index < 2 * SUB_BUCKETS) {
+                return index;
+            }
+            int shift = index / SUB_BUCKETS - 1;
+            long subBucket = index - (long) shift * SUB_BUCKETS;
+            return ((subBucket + 1) << shift) - 1;
+        }
+    }
+}
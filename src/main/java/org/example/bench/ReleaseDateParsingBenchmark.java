@@ -0,0 +1,135 @@
+package org.example.bench;
+
+import org.example.entities.ReleaseDates;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Compares parsing and formatting {@code dd.MM.yyyy} release dates through {@link DateTimeFormatter}
+ * with {@link ReleaseDates}, on valid dates and on a share of malformed ones. Every run first checks
+ * that both paths agree on every day from year 1 to 9999.
+ * <p>
+ * Usage: {@code ReleaseDateParsingBenchmark [dates] [invalidPercent] [iterations]}
+ */
+public class ReleaseDateParsingBenchmark {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    // Keeps the JIT from discarding the measured work.
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int invalidPercent = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        verify();
+
+        Random random = new Random(42);
+        String[] dates = new String[count];
+        long[] epochDays = new long[count];
+        for (int i = 0; i < count; i++) {
+            epochDays[i] = LocalDate.of(1950, 1, 1).toEpochDay() + random.nextInt(365 * 80);
+            dates[i] = random.nextInt(100) < invalidPercent ? "31.02.2001" : ReleaseDates.format(epochDays[i]);
+        }
+        byte[] feed = String.join("\n", dates).getBytes(StandardCharsets.US_ASCII);
+
+        System.out.printf("%d dates, %d%% invalid, %d iterations%n", count, invalidPercent, iterations);
+        System.out.printf("%-36s %12s%n", "path", "ns/date");
+        for (int warmup = 0; warmup < 2; warmup++) {
+            parseWithFormatter(dates);
+            parseChars(dates);
+            parseBytes(feed);
+            formatWithFormatter(epochDays);
+            formatChars(epochDays);
+        }
+        report("parse: DateTimeFormatter", count, iterations, () -> parseWithFormatter(dates));
+        report("parse: ReleaseDates (CharSequence)", count, iterations, () -> parseChars(dates));
+        report("parse: ReleaseDates (byte feed)", count, iterations, () -> parseBytes(feed));
+        report("format: DateTimeFormatter", count, iterations, () -> formatWithFormatter(epochDays));
+        report("format: ReleaseDates (char[])", count, iterations, () -> formatChars(epochDays));
+    }
+
+    private static void report(String path, int count, int iterations, LongSupplier run) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += run.getAsLong();
+        }
+        double nanosPerDate = (System.nanoTime() - start) / (double) iterations / count;
+        System.out.printf("%-36s %12.1f%n", path, nanosPerDate);
+    }
+
+    private static long parseWithFormatter(String[] dates) {
+        long sum = 0;
+        for (String date : dates) {
+            try {
+                sum += LocalDate.parse(date, DATE_FORMATTER).atStartOfDay().toLocalDate().toEpochDay();
+            } catch (DateTimeParseException e) {
+                sum--;
+            }
+        }
+        return sum;
+    }
+
+    private static long parseChars(String[] dates) {
+        long sum = 0;
+        for (String date : dates) {
+            long epochDay = ReleaseDates.parseEpochDay(date);
+            sum += epochDay == ReleaseDates.INVALID ? -1 : epochDay;
+        }
+        return sum;
+    }
+
+    private static long parseBytes(byte[] feed) {
+        long sum = 0;
+        int start = 0;
+        for (int i = 0; i <= feed.length; i++) {
+            if (i == feed.length || feed[i] == '\n') {
+                long epochDay = ReleaseDates.parseEpochDay(feed, start, i - start);
+                sum += epochDay == ReleaseDates.INVALID ? -1 : epochDay;
+                start = i + 1;
+            }
+        }
+        return sum;
+    }
+
+    private static long formatWithFormatter(long[] epochDays) {
+        long sum = 0;
+        for (long epochDay : epochDays) {
+            sum += DATE_FORMATTER.format(LocalDate.ofEpochDay(epochDay)).charAt(1);
+        }
+        return sum;
+    }
+
+    private static long formatChars(long[] epochDays) {
+        char[] buffer = new char[ReleaseDates.LENGTH];
+        long sum = 0;
+        for (long epochDay : epochDays) {
+            ReleaseDates.format(epochDay, buffer, 0);
+            sum += buffer[1];
+        }
+        return sum;
+    }
+
+    private static void verify() {
+        long first = LocalDate.of(1, 1, 1).toEpochDay();
+        long last = LocalDate.of(9999, 12, 31).toEpochDay();
+        for (long epochDay = first; epochDay <= last; epochDay++) {
+            String expected = DATE_FORMATTER.format(LocalDate.ofEpochDay(epochDay));
+            String formatted = ReleaseDates.format(epochDay);
+            if (!expected.equals(formatted) || ReleaseDates.parseEpochDay(expected) != epochDay) {
+                throw new IllegalStateException("Mismatch at epoch day " + epochDay + ": " + expected + " vs " + formatted);
+            }
+        }
+        for (String invalid : new String[]{"29.02.2001", "31.04.2020", "00.01.2020", "01.13.2020", "1.1.2020", "01-01-2020", "0a.01.2020", "01.01.0000", ""}) {
+            if (ReleaseDates.parseEpochDay(invalid) != ReleaseDates.INVALID) {
+                throw new IllegalStateException("Accepted invalid date " + invalid);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.bench;
+
+import org.example.entities.Manufacturer;
+import org.example.storage.DataManager;
+import org.example.storage.SnapshotCodec;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Compares snapshot size and save/load time for each codec and deflate level.
+ * <p>
+ * Usage: {@code SnapshotCompressionBenchmark [manufacturers] [souvenirsPerManufacturer] [iterations]}
+ */
+public class SnapshotCompressionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int manufacturers = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int souvenirsPerManufacturer = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        List<Manufacturer> catalog = CatalogGenerator.generate(manufacturers, souvenirsPerManufacturer, 42);
+        SnapshotCodec[] codecs = {
+                SnapshotCodec.NONE,
+                SnapshotCodec.deflate(Deflater.BEST_SPEED),
+                SnapshotCodec.deflate(3),
+                SnapshotCodec.deflate(Deflater.DEFAULT_COMPRESSION),
+                SnapshotCodec.deflate(Deflater.BEST_COMPRESSION)
+        };
+
+        Path dir = Files.createTempDirectory("snapshot-bench");
+        System.out.printf("%d manufacturers x %d souvenirs, %d iterations%n", manufacturers, souvenirsPerManufacturer, iterations);
+        System.out.printf("%-28s %12s %12s %12s%n", "codec", "size (KiB)", "save (ms)", "load (ms)");
+        for (SnapshotCodec codec : codecs) {
+            Path file = dir.resolve("bench-" + codec.hashCode() + ".dat");
+            DataManager dataManager = new DataManager(file.toString(), codec);
+
+            // Warm up both paths once before measuring.
+            dataManager.saveData(catalog);
+            dataManager.loadData();
+
+            long saveNanos = 0;
+            long loadNanos = 0;
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                dataManager.saveData(catalog);
+                saveNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                List<Manufacturer> loaded = dataManager.loadData();
+                loadNanos += System.nanoTime() - start;
+                if (loaded == null || loaded.size() != catalog.size()) {
+                    throw new IllegalStateException("Round trip failed for " + codec);
+                }
+            }
+            System.out.printf("%-28s %12d %12.1f %12.1f%n", codec, Files.size(file) / 1024,
+                    saveNanos / 1e6 / iterations, loadNanos / 1e6 / iterations);
+            Files.deleteIfExists(file);
+        }
+        Files.deleteIfExists(dir);
+    }
+}
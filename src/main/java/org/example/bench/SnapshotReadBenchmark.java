@@ -0,0 +1,102 @@
+package org.example.bench;
+
+import org.example.entities.Manufacturer;
+import org.example.entities.Souvenir;
+import org.example.services.CatalogSnapshot;
+import org.example.services.SouvenirsService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures point-lookup throughput with 1, 2, 4, ... reader threads while one writer keeps changing prices,
+ * once through the service's locked lookups and once through lock-free {@link CatalogSnapshot}s.
+ * <p>
+ * Usage: {@code SnapshotReadBenchmark [manufacturers] [souvenirsPerManufacturer] [maxThreads] [seconds]}
+ */
+public class SnapshotReadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int manufacturers = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int souvenirsPerManufacturer = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        double seconds = args.length > 3 ? Double.parseDouble(args[3]) : 2;
+
+        Path dir = Files.createTempDirectory("snapshot-read-bench");
+        SouvenirsService service = new SouvenirsService(dir.resolve("catalog.dat").toString());
+        service.setCheckpointInterval(Integer.MAX_VALUE);
+        List<Manufacturer> catalog = CatalogGenerator.generate(manufacturers, souvenirsPerManufacturer, 42);
+        service.save(catalog);
+        service.awaitIndexes();
+
+        System.out.printf("%d manufacturers x %d souvenirs, one writer, %.1f s per run%n",
+                manufacturers, souvenirsPerManufacturer, seconds);
+        System.out.printf("%-8s %16s %16s %10s%n", "threads", "locked (ops/s)", "snapshot (ops/s)", "writes/s");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            Result locked = run(service, threads, seconds, manufacturers, souvenirsPerManufacturer, false);
+            Result snapshot = run(service, threads, seconds, manufacturers, souvenirsPerManufacturer, true);
+            System.out.printf("%-8d %16.0f %16.0f %10.0f%n", threads, locked.reads, snapshot.reads, snapshot.writes);
+        }
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    private record Result(double reads, double writes) {
+    }
+
+    private static Result run(SouvenirsService service, int threads, double seconds, int manufacturers,
+                              int souvenirsPerManufacturer, boolean useSnapshots) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder reads = new LongAdder();
+        LongAdder writes = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads + 1);
+
+        Thread writer = new Thread(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (running.get()) {
+                int m = random.nextInt(manufacturers);
+                service.updateSouvenirPrice(CatalogGenerator.manufacturerName(m),
+                        CatalogGenerator.souvenirName(m, random.nextInt(souvenirsPerManufacturer)), random.nextInt(1, 500));
+                writes.increment();
+            }
+            done.countDown();
+        });
+        writer.start();
+
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long count = 0;
+                double sink = 0;
+                while (running.get()) {
+                    int m = random.nextInt(manufacturers);
+                    String manufacturerName = CatalogGenerator.manufacturerName(m);
+                    String souvenirName = CatalogGenerator.souvenirName(m, random.nextInt(souvenirsPerManufacturer));
+                    if (useSnapshots) {
+                        sink += service.snapshot().getSouvenir(manufacturerName, souvenirName).getPrice();
+                    } else {
+                        Souvenir souvenir = service.findSouvenirByManufacturerAndName(manufacturerName, souvenirName);
+                        sink += souvenir.getPrice();
+                    }
+                    count++;
+                }
+                reads.add(count + (sink < 0 ? 1 : 0));
+                done.countDown();
+            }).start();
+        }
+
+        Thread.sleep((long) (seconds * 1000));
+        running.set(false);
+        done.await();
+        return new Result(reads.sum() / seconds, writes.sum() / seconds);
+    }
+}
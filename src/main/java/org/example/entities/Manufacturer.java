@@ -1,19 +1,32 @@
 package org.example.entities;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Represents a Manufacturer with information such as name, country, and a list of souvenirs.
  * Implements Serializable to support object serialization.
+ * <p>
+ * Souvenirs are kept in insertion order in a list, with a transient index by name beside it, so lookups,
+ * uniqueness checks and renames don't depend on how many souvenirs the manufacturer has.
  */
 public class Manufacturer implements Serializable {
+    // Pinned to the value of the original class, so snapshots written before it was declared stay readable.
+    private static final long serialVersionUID = 6068442777779202001L;
+
     private String name;
     private String country;
     private ArrayList<Souvenir> souvenirs;
+    private transient HashMap<String, Souvenir> souvenirsByName;
+    private transient List<Souvenir> souvenirsView;
 
     /**
      * Constructs a Manufacturer with the specified name and country.
@@ -25,6 +38,20 @@ public class Manufacturer implements Serializable {
         setName(name);
         setCountry(country);
         this.souvenirs = new ArrayList<>();
+        this.souvenirsByName = new HashMap<>();
+    }
+
+    /**
+     * Constructs a copy of a manufacturer, including copies of its souvenirs.
+     *
+     * @param other The manufacturer to copy.
+     */
+    public Manufacturer(Manufacturer other) {
+        this.name = other.name;
+        this.country = other.country;
+        this.souvenirs = new ArrayList<>(other.souvenirs.size());
+        this.souvenirsByName = new HashMap<>();
+        other.souvenirs.forEach(s -> addSouvenir(new Souvenir(s)));
     }
 
     // Getters
@@ -48,12 +75,36 @@ public class Manufacturer implements Serializable {
     }
 
     /**
-     * Gets the list of souvenirs produced by the manufacturer.
+     * Gets the souvenirs produced by the manufacturer, in the order they were added.
+     * The list is a read-only view: it reflects later changes and is not copied.
      *
      * @return The list of souvenirs produced by the manufacturer.
      */
-    public ArrayList<Souvenir> getSouvenirs() {
-        return souvenirs;
+    public List<Souvenir> getSouvenirs() {
+        if (souvenirsView == null) {
+            souvenirsView = Collections.unmodifiableList(souvenirs);
+        }
+        return souvenirsView;
+    }
+
+    /**
+     * Gets the souvenir with the specified name.
+     *
+     * @param souvenirName The name of the souvenir.
+     * @return The souvenir or null if the manufacturer has no souvenir with that name.
+     */
+    public Souvenir getSouvenir(String souvenirName) {
+        return souvenirsByName.get(souvenirName);
+    }
+
+    /**
+     * Checks whether the manufacturer has a souvenir with the specified name.
+     *
+     * @param souvenirName The name of the souvenir.
+     * @return true if a souvenir with that name exists, false otherwise.
+     */
+    public boolean containsSouvenir(String souvenirName) {
+        return souvenirsByName.containsKey(souvenirName);
     }
 
     // Setters
@@ -84,16 +135,67 @@ public class Manufacturer implements Serializable {
 
     /**
      * Adds a souvenir to the list of souvenirs produced by the manufacturer.
+     * A souvenir whose name is already taken by another souvenir of the manufacturer is not added.
      *
      * @param souvenir The souvenir to add.
      */
     public void addSouvenir(Souvenir souvenir) {
-        Optional<Souvenir> souvenirOpt = Optional.of(souvenir);
-        souvenirOpt.ifPresentOrElse(this.souvenirs::add, () -> {
+        Optional<Souvenir> souvenirOpt = Optional.ofNullable(souvenir);
+        souvenirOpt.ifPresentOrElse(s -> {
+            if (souvenirsByName.putIfAbsent(s.getName(), s) == null) {
+                souvenirs.add(s);
+                s.owner = this;
+            } else {
+                System.out.println("Can't add a souvenir. Manufacturer already has a souvenir named " + s.getName());
+            }
+        }, () -> {
             System.out.println("Can't add a souvenir. Value is absent.");
         });
     }
 
+    /**
+     * Removes the souvenir with the specified name from the souvenirs produced by the manufacturer.
+     *
+     * @param souvenirName The name of the souvenir to remove.
+     * @return The removed souvenir, or null if the manufacturer has no souvenir with that name.
+     */
+    public Souvenir removeSouvenir(String souvenirName) {
+        Souvenir removed = souvenirsByName.remove(souvenirName);
+        if (removed != null) {
+            for (int i = souvenirs.size() - 1; i >= 0; i--) {
+                if (souvenirs.get(i) == removed) {
+                    souvenirs.remove(i);
+                    break;
+                }
+            }
+            removed.owner = null;
+        }
+        return removed;
+    }
+
+    /**
+     * Removes the souvenirs with the specified names in a single pass over the souvenir list.
+     * Names the manufacturer doesn't have are ignored.
+     *
+     * @param souvenirNames The names of the souvenirs to remove.
+     * @return The removed souvenirs, in the order they were added.
+     */
+    public List<Souvenir> removeSouvenirs(Set<String> souvenirNames) {
+        List<Souvenir> removed = new ArrayList<>();
+        souvenirs.removeIf(s -> {
+            if (souvenirNames.contains(s.getName())) {
+                removed.add(s);
+                return true;
+            }
+            return false;
+        });
+        removed.forEach(s -> {
+            souvenirsByName.remove(s.getName());
+            s.owner = null;
+        });
+        return removed;
+    }
+
     /**
      * Adds a list of souvenirs to the list of souvenirs produced by the manufacturer.
      *
@@ -105,6 +207,41 @@ public class Manufacturer implements Serializable {
         }
     }
 
+    /**
+     * Re-keys a souvenir of this manufacturer before its name changes. Its position in the list is kept.
+     * Called by {@link Souvenir#setName(String)}.
+     *
+     * @param souvenir The souvenir being renamed.
+     * @param newName  The new name of the souvenir.
+     * @throws Exception If another souvenir of the manufacturer already has the new name.
+     */
+    void souvenirRenamed(Souvenir souvenir, String newName) throws Exception {
+        String oldName = souvenir.getName();
+        if (oldName.equals(newName) || souvenirsByName.get(oldName) != souvenir) {
+            return;
+        }
+        if (souvenirsByName.containsKey(newName)) {
+            throw new Exception("Manufacturer '" + name + "' already has a souvenir named " + newName);
+        }
+        souvenirsByName.remove(oldName);
+        souvenirsByName.put(newName, souvenir);
+    }
+
+    /**
+     * Reads a manufacturer and rebuilds the index by name, which is not serialized.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (souvenirs == null) {
+            souvenirs = new ArrayList<>();
+        }
+        souvenirsByName = new HashMap<>();
+        souvenirs.forEach(s -> {
+            souvenirsByName.put(s.getName(), s);
+            s.owner = this;
+        });
+    }
+
     /**
      * Returns a string representation of the Manufacturer.
      *
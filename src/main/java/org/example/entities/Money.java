@@ -0,0 +1,185 @@
+package org.example.entities;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * An exact amount of money: a whole number of minor units (e.g. cents) in a currency.
+ * <p>
+ * Amounts compare and add as plain {@code long}s, so threshold checks are exact and cheap.
+ * Conversions from {@code double} round to the nearest minor unit, which maps a value such as
+ * {@code 19.99} to exactly 1999 cents.
+ */
+public final class Money implements Comparable<Money>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Currency of prices given as plain numbers.
+     */
+    public static final Currency DEFAULT_CURRENCY = Currency.getInstance("USD");
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000};
+
+    private final long minorUnits;
+    private final Currency currency;
+
+    private Money(long minorUnits, Currency currency) {
+        this.minorUnits = minorUnits;
+        this.currency = Objects.requireNonNull(currency, "currency");
+    }
+
+    /**
+     * Creates an amount from minor units.
+     *
+     * @param minorUnits The amount in minor units, e.g. cents.
+     * @param currency   The currency.
+     * @return The amount.
+     */
+    public static Money ofMinor(long minorUnits, Currency currency) {
+        return new Money(minorUnits, currency);
+    }
+
+    /**
+     * Creates an amount from a decimal number, which must not have more fraction digits than the currency.
+     *
+     * @param amount   The amount in major units, e.g. "19.99".
+     * @param currency The currency.
+     * @return The amount.
+     * @throws IllegalArgumentException If the amount has too many fraction digits.
+     */
+    public static Money of(BigDecimal amount, Currency currency) {
+        try {
+            return new Money(amount.setScale(fractionDigits(currency), RoundingMode.UNNECESSARY).unscaledValue().longValueExact(), currency);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Not a valid " + currency + " amount: " + amount, e);
+        }
+    }
+
+    /**
+     * Creates an amount in the {@link #DEFAULT_CURRENCY} from a number, rounded to the nearest minor unit.
+     *
+     * @param amount The amount in major units.
+     * @return The amount.
+     */
+    public static Money of(double amount) {
+        return of(amount, DEFAULT_CURRENCY);
+    }
+
+    /**
+     * Creates an amount from a number, rounded to the nearest minor unit.
+     *
+     * @param amount   The amount in major units.
+     * @param currency The currency.
+     * @return The amount.
+     * @throws IllegalArgumentException If the amount is not a finite number.
+     */
+    public static Money of(double amount, Currency currency) {
+        if (!Double.isFinite(amount)) {
+            throw new IllegalArgumentException("Not a valid amount: " + amount);
+        }
+        // The shortest decimal representation of the double, so 19.99 rounds from "19.99", not 19.989999...
+        return new Money(BigDecimal.valueOf(amount).setScale(fractionDigits(currency), RoundingMode.HALF_EVEN)
+                .unscaledValue().longValueExact(), currency);
+    }
+
+    /**
+     * Multiplies the amount by a factor, rounding to the nearest minor unit.
+     *
+     * @param factor The factor, e.g. 1.05 to add 5%.
+     * @return The product, in the same currency.
+     */
+    public Money multiply(BigDecimal factor) {
+        return new Money(toBigDecimal().multiply(factor).setScale(fractionDigits(currency), RoundingMode.HALF_EVEN)
+                .unscaledValue().longValueExact(), currency);
+    }
+
+    private static int fractionDigits(Currency currency) {
+        return Math.max(currency.getDefaultFractionDigits(), 0);
+    }
+
+    /**
+     * Gets the amount in minor units.
+     *
+     * @return The amount, e.g. 1999 for 19.99 USD.
+     */
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    /**
+     * Gets the currency.
+     *
+     * @return The currency.
+     */
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    /**
+     * Gets the amount as an exact decimal number in major units.
+     *
+     * @return The amount, e.g. 19.99.
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, fractionDigits(currency));
+    }
+
+    /**
+     * Gets the amount as a number in major units, for APIs that work with doubles.
+     *
+     * @return The nearest double to the amount.
+     */
+    public double toDouble() {
+        int digits = fractionDigits(currency);
+        return digits < POWERS_OF_TEN.length
+                ? minorUnits / (double) POWERS_OF_TEN[digits]
+                : toBigDecimal().doubleValue();
+    }
+
+    /**
+     * Checks whether this amount is below another one in the same currency.
+     *
+     * @param limit The amount to compare with.
+     * @return true if both amounts have the same currency and this one is smaller.
+     */
+    public boolean isLessThan(Money limit) {
+        return currency == limit.currency && minorUnits < limit.minorUnits;
+    }
+
+    /**
+     * Orders amounts by currency code and then by amount, so amounts of one currency are contiguous.
+     */
+    @Override
+    public int compareTo(Money other) {
+        if (currency != other.currency) {
+            return currency.getCurrencyCode().compareTo(other.currency.getCurrencyCode());
+        }
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Money money)) return false;
+        return minorUnits == money.minorUnits && currency.equals(money.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits) * 31 + currency.hashCode();
+    }
+
+    /**
+     * Returns the amount followed by the currency code, e.g. "19.99 USD".
+     *
+     * @return The formatted amount.
+     */
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency.getCurrencyCode();
+    }
+}
@@ -0,0 +1,229 @@
+package org.example.entities;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Parses and formats release dates in the {@code dd.MM.yyyy} format without going through
+ * {@link java.time.format.DateTimeFormatter}. Dates are handled as epoch days (days since 1970-01-01),
+ * parsing works directly on characters or bytes, and invalid input is reported by returning
+ * {@link #INVALID} instead of throwing, so bulk feeds pay neither for intermediate objects nor for exceptions.
+ */
+public final class ReleaseDates {
+
+    /**
+     * Returned by the parse methods when the text is not a valid {@code dd.MM.yyyy} date.
+     */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    /**
+     * Length of a formatted date.
+     */
+    public static final int LENGTH = 10;
+
+    private static final long DAYS_0000_TO_1970 = 719_528;
+
+    private ReleaseDates() {
+    }
+
+    /**
+     * Parses a {@code dd.MM.yyyy} date.
+     *
+     * @param text The text to parse.
+     * @return The epoch day, or {@link #INVALID} if the text is not a valid date.
+     */
+    public static long parseEpochDay(CharSequence text) {
+        return text == null ? INVALID : parseEpochDay(text, 0, text.length());
+    }
+
+    /**
+     * Parses a {@code dd.MM.yyyy} date from part of a character sequence.
+     *
+     * @param text  The text containing the date.
+     * @param start The index of the first character of the date.
+     * @param end   The index after the last character of the date.
+     * @return The epoch day, or {@link #INVALID} if the range is not a valid date.
+     */
+    public static long parseEpochDay(CharSequence text, int start, int end) {
+        if (end - start != LENGTH || text.charAt(start + 2) != '.' || text.charAt(start + 5) != '.') {
+            return INVALID;
+        }
+        int day = digit(text.charAt(start)) * 10 + digit(text.charAt(start + 1));
+        int month = digit(text.charAt(start + 3)) * 10 + digit(text.charAt(start + 4));
+        int year = digit(text.charAt(start + 6)) * 1000 + digit(text.charAt(start + 7)) * 100
+                + digit(text.charAt(start + 8)) * 10 + digit(text.charAt(start + 9));
+        return toEpochDay(year, month, day);
+    }
+
+    /**
+     * Parses a {@code dd.MM.yyyy} date from ASCII bytes, e.g. straight out of a read buffer.
+     *
+     * @param bytes  The buffer containing the date.
+     * @param offset The index of the first byte of the date.
+     * @param length The number of bytes of the date.
+     * @return The epoch day, or {@link #INVALID} if the bytes are not a valid date.
+     */
+    public static long parseEpochDay(byte[] bytes, int offset, int length) {
+        if (length != LENGTH || bytes[offset + 2] != '.' || bytes[offset + 5] != '.') {
+            return INVALID;
+        }
+        int day = digit(bytes[offset]) * 10 + digit(bytes[offset + 1]);
+        int month = digit(bytes[offset + 3]) * 10 + digit(bytes[offset + 4]);
+        int year = digit(bytes[offset + 6]) * 1000 + digit(bytes[offset + 7]) * 100
+                + digit(bytes[offset + 8]) * 10 + digit(bytes[offset + 9]);
+        return toEpochDay(year, month, day);
+    }
+
+    /**
+     * Writes an epoch day as {@code dd.MM.yyyy} characters.
+     *
+     * @param epochDay    The epoch day, within years 1 to 9999.
+     * @param destination The array to write to.
+     * @param offset      The index to write the first character at.
+     * @return The index after the last written character.
+     */
+    public static int format(long epochDay, char[] destination, int offset) {
+        long civil = toCivil(epochDay);
+        int year = (int) (civil >> 9);
+        int month = (int) (civil >> 5) & 0xF;
+        int day = (int) civil & 0x1F;
+        destination[offset] = (char) ('0' + day / 10);
+        destination[offset + 1] = (char) ('0' + day % 10);
+        destination[offset + 2] = '.';
+        destination[offset + 3] = (char) ('0' + month / 10);
+        destination[offset + 4] = (char) ('0' + month % 10);
+        destination[offset + 5] = '.';
+        destination[offset + 6] = (char) ('0' + year / 1000);
+        destination[offset + 7] = (char) ('0' + year / 100 % 10);
+        destination[offset + 8] = (char) ('0' + year / 10 % 10);
+        destination[offset + 9] = (char) ('0' + year % 10);
+        return offset + LENGTH;
+    }
+
+    /**
+     * Writes an epoch day as {@code dd.MM.yyyy} ASCII bytes.
+     *
+     * @param epochDay    The epoch day, within years 1 to 9999.
+     * @param destination The buffer to write to.
+     * @param offset      The index to write the first byte at.
+     * @return The index after the last written byte.
+     */
+    public static int format(long epochDay, byte[] destination, int offset) {
+        long civil = toCivil(epochDay);
+        int year = (int) (civil >> 9);
+        int month = (int) (civil >> 5) & 0xF;
+        int day = (int) civil & 0x1F;
+        destination[offset] = (byte) ('0' + day / 10);
+        destination[offset + 1] = (byte) ('0' + day % 10);
+        destination[offset + 2] = '.';
+        destination[offset + 3] = (byte) ('0' + month / 10);
+        destination[offset + 4] = (byte) ('0' + month % 10);
+        destination[offset + 5] = '.';
+        destination[offset + 6] = (byte) ('0' + year / 1000);
+        destination[offset + 7] = (byte) ('0' + year / 100 % 10);
+        destination[offset + 8] = (byte) ('0' + year / 10 % 10);
+        destination[offset + 9] = (byte) ('0' + year % 10);
+        return offset + LENGTH;
+    }
+
+    /**
+     * Appends an epoch day as {@code dd.MM.yyyy}.
+     *
+     * @param epochDay    The epoch day, within years 1 to 9999.
+     * @param destination The builder to append to.
+     * @return The builder.
+     */
+    public static StringBuilder appendTo(long epochDay, StringBuilder destination) {
+        long civil = toCivil(epochDay);
+        int year = (int) (civil >> 9);
+        int month = (int) (civil >> 5) & 0xF;
+        int day = (int) civil & 0x1F;
+        return destination
+                .append((char) ('0' + day / 10)).append((char) ('0' + day % 10)).append('.')
+                .append((char) ('0' + month / 10)).append((char) ('0' + month % 10)).append('.')
+                .append((char) ('0' + year / 1000)).append((char) ('0' + year / 100 % 10))
+                .append((char) ('0' + year / 10 % 10)).append((char) ('0' + year % 10));
+    }
+
+    /**
+     * Formats an epoch day as {@code dd.MM.yyyy}.
+     *
+     * @param epochDay The epoch day, within years 1 to 9999.
+     * @return The formatted date.
+     */
+    public static String format(long epochDay) {
+        char[] chars = new char[LENGTH];
+        format(epochDay, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Converts an epoch day to the start of that day.
+     *
+     * @param epochDay The epoch day.
+     * @return The date and time at midnight.
+     */
+    public static LocalDateTime toDateTime(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay).atStartOfDay();
+    }
+
+    /**
+     * Converts a date and time to the epoch day it falls on.
+     *
+     * @param dateTime The date and time.
+     * @return The epoch day.
+     */
+    public static long toEpochDay(LocalDateTime dateTime) {
+        return dateTime.toLocalDate().toEpochDay();
+    }
+
+    private static int digit(int c) {
+        int d = c - '0';
+        // Push any non-digit far out of range so the date checks reject it.
+        return d >= 0 && d <= 9 ? d : -100_000;
+    }
+
+    /**
+     * Same arithmetic as {@link LocalDate#toEpochDay()}, after validating the fields.
+     */
+    private static long toEpochDay(int year, int month, int day) {
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return INVALID;
+        }
+        long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total -= isLeapYear(year) ? 1 : 2;
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeapYear(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * Converts an epoch day to year, month and day packed as {@code year << 9 | month << 5 | day}.
+     */
+    private static long toCivil(long epochDay) {
+        long z = epochDay + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year << 9 | month << 5 | day;
+    }
+}
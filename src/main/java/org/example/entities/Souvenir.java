@@ -1,26 +1,33 @@
 package org.example.entities;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
-import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoField;
+import java.util.Currency;
 import java.util.Objects;
 
 /**
  * Represents a Souvenir with information such as name, manufacturer details, release date, and price.
  * Implements Serializable to support object serialization.
+ * <p>
+ * The price is kept exactly, as a whole number of minor units of its currency (see {@link Money});
+ * the {@code double} accessors convert to and from that representation.
  */
 public class Souvenir implements Serializable {
+    // Pinned to the value of the original class, so snapshots written before it was declared stay readable.
+    private static final long serialVersionUID = 1871774340878509897L;
+
     private String name;
     private String manufacturerDetails;
     private LocalDateTime releaseDate;
-    private double price;
-
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    private long priceMinorUnits;
+    private Currency currency = Money.DEFAULT_CURRENCY;
+    // The manufacturer whose souvenir map holds this souvenir, kept in step by setName.
+    transient Manufacturer owner;
 
     /**
      * Constructs a Souvenir with the specified attributes.
@@ -37,6 +44,21 @@ public class Souvenir implements Serializable {
         setPrice(price);
     }
 
+    /**
+     * Constructs a Souvenir with the specified attributes and an exact price.
+     *
+     * @param name               The name of the souvenir.
+     * @param manufacturerDetails The details of the manufacturer.
+     * @param releaseDate        The release date of the souvenir.
+     * @param price              The price of the souvenir.
+     */
+    public Souvenir(String name, String manufacturerDetails, LocalDateTime releaseDate, Money price) throws Exception {
+        setName(name);
+        setManufacturerDetails(manufacturerDetails);
+        setReleaseDate(releaseDate);
+        setPrice(price);
+    }
+
     public Souvenir(String name, String manufacturerDetails, String releaseDate, double price) throws Exception {
         setName(name);
         setManufacturerDetails(manufacturerDetails);
@@ -44,6 +66,19 @@ public class Souvenir implements Serializable {
         setPrice(price);
     }
 
+    /**
+     * Constructs a copy of a souvenir. The copy belongs to no manufacturer.
+     *
+     * @param other The souvenir to copy.
+     */
+    public Souvenir(Souvenir other) {
+        this.name = other.name;
+        this.manufacturerDetails = other.manufacturerDetails;
+        this.releaseDate = other.releaseDate;
+        this.priceMinorUnits = other.priceMinorUnits;
+        this.currency = other.currency;
+    }
+
     // Getters
 
     /**
@@ -79,7 +114,44 @@ public class Souvenir implements Serializable {
      * @return The price of the souvenir.
      */
     public double getPrice() {
-        return price;
+        return getPriceMoney().toDouble();
+    }
+
+    /**
+     * Gets the exact price of the souvenir.
+     *
+     * @return The price of the souvenir.
+     */
+    public Money getPriceMoney() {
+        return Money.ofMinor(priceMinorUnits, currency);
+    }
+
+    /**
+     * Gets the price of the souvenir in minor units of its currency, without allocating.
+     *
+     * @return The price in minor units, e.g. cents.
+     */
+    public long getPriceMinorUnits() {
+        return priceMinorUnits;
+    }
+
+    /**
+     * Gets the currency of the souvenir's price.
+     *
+     * @return The currency.
+     */
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    /**
+     * Checks whether the souvenir is cheaper than a limit in the same currency, comparing minor units only.
+     *
+     * @param limit The exclusive upper price limit.
+     * @return true if the price has the limit's currency and is below it.
+     */
+    public boolean isCheaperThan(Money limit) {
+        return currency == limit.getCurrency() && priceMinorUnits < limit.getMinorUnits();
     }
 
     // Setters
@@ -88,11 +160,15 @@ public class Souvenir implements Serializable {
      * Sets the name of the souvenir.
      *
      * @param name The name to set for the souvenir.
+     * @throws Exception If the name is empty or another souvenir of the same manufacturer already has it.
      */
     public void setName(String name) throws Exception {
         if(name.isEmpty()) {
             throw new Exception("Souvenir name can't be empty");
         }
+        if (owner != null) {
+            owner.souvenirRenamed(this, name);
+        }
         this.name = name;
     }
 
@@ -123,33 +199,37 @@ public class Souvenir implements Serializable {
      * @param releaseDateString The release date string to set for the souvenir.
      */
     public void setReleaseDate(String releaseDateString) {
-        try {
-            LocalDate dt = LocalDate.parse(releaseDateString, DATE_FORMATTER);
-            this.releaseDate = dt.atStartOfDay();
-
-//            this.releaseDate = LocalDateTime.parse(releaseDateString, DATE_FORMATTER);
-
-//            this.releaseDate = date.atStartOfDay();
-
-//            this.releaseDate = LocalDateTime.of(date, LocalTime.MIDNIGHT);
-
-//            this.releaseDate = LocalDateTime.parse(releaseDateString, DATE_FORMATTER);
-        } catch (DateTimeParseException ex) {
+        long epochDay = ReleaseDates.parseEpochDay(releaseDateString);
+        if (epochDay == ReleaseDates.INVALID) {
             System.out.println("Can't set release date. Wrong format. Should be `dd.MM.yyyy`");
-            ex.printStackTrace();
+            return;
         }
+        this.releaseDate = ReleaseDates.toDateTime(epochDay);
     }
 
     /**
-     * Sets the price of the souvenir.
+     * Sets the price of the souvenir, rounded to the nearest minor unit of its currency.
      *
      * @param price The price to set for the souvenir.
      */
     public void setPrice(double price) throws Exception {
-        if(price < 0) {
+        if(!Double.isFinite(price)) {
+            throw new Exception("Souvenir price must be a number");
+        }
+        setPrice(Money.of(price, currency));
+    }
+
+    /**
+     * Sets the exact price of the souvenir.
+     *
+     * @param price The price to set for the souvenir.
+     */
+    public void setPrice(Money price) throws Exception {
+        if(price.getMinorUnits() < 0) {
             throw new Exception("Souvenir price can't be negative");
         }
-        this.price = price;
+        this.priceMinorUnits = price.getMinorUnits();
+        this.currency = price.getCurrency();
     }
 
     /**
@@ -159,7 +239,7 @@ public class Souvenir implements Serializable {
      */
     @Override
     public String toString() {
-        return String.format("Souvenir(\n\t\tname = %s, \n\t\tmanufacturerDetails = %s, \n\t\treleaseDate = %s, \n\t\tprice = %s)", this.name, this.manufacturerDetails, this.releaseDate, this.price);
+        return String.format("Souvenir(\n\t\tname = %s, \n\t\tmanufacturerDetails = %s, \n\t\treleaseDate = %s, \n\t\tprice = %s)", this.name, this.manufacturerDetails, this.releaseDate, getPriceMoney());
     }
 
     /**
@@ -169,7 +249,7 @@ public class Souvenir implements Serializable {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(name, manufacturerDetails, releaseDate, price);
+        return Objects.hash(name, manufacturerDetails, releaseDate, priceMinorUnits, currency);
     }
 
     /**
@@ -187,6 +267,25 @@ public class Souvenir implements Serializable {
         return Objects.equals(name, souvenir.name)
                 && (manufacturerDetails.equals(souvenir.manufacturerDetails)
                 && releaseDate.equals(souvenir.releaseDate)
-                && price == souvenir.price);
+                && priceMinorUnits == souvenir.priceMinorUnits
+                && currency.equals(souvenir.currency));
+    }
+
+    /**
+     * Reads a souvenir, converting the {@code double} price of snapshots written by earlier versions.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        name = (String) fields.get("name", null);
+        manufacturerDetails = (String) fields.get("manufacturerDetails", null);
+        releaseDate = (LocalDateTime) fields.get("releaseDate", null);
+        if (fields.getObjectStreamClass().getField("price") != null) {
+            Money price = Money.of(fields.get("price", 0.0));
+            priceMinorUnits = price.getMinorUnits();
+            currency = price.getCurrency();
+        } else {
+            priceMinorUnits = fields.get("priceMinorUnits", 0L);
+            currency = (Currency) fields.get("currency", Money.DEFAULT_CURRENCY);
+        }
     }
 }
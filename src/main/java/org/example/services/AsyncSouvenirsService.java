@@ -0,0 +1,379 @@
+package org.example.services;
+
+import org.example.entities.Manufacturer;
+import org.example.entities.Money;
+import org.example.entities.Souvenir;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Asynchronous facade over a {@link SouvenirsService}. Every query and mutation returns a
+ * {@link CompletableFuture} and runs on a dedicated, bounded pool of storage threads, so callers never
+ * block on file I/O and can have many operations in flight without a thread each.
+ * <p>
+ * Mutations of the same manufacturer run one after another, in the order they were submitted; mutations
+ * of different manufacturers run in parallel and share journal fsyncs. A rename is ordered after earlier
+ * mutations of both the old and the new name. Operations that may touch any manufacturer, replacing the
+ * catalog with {@link #save(List)} and the bulk removals and repricings, are barriers: each runs after every
+ * mutation submitted before it, and every mutation submitted after it waits for it.
+ * When the queue of pending operations is full, new operations fail with a {@link RejectedExecutionException}
+ * instead of blocking the caller.
+ * <p>
+ * Each method behaves like the {@link SouvenirsService} method of the same name.
+ */
+public class AsyncSouvenirsService implements AutoCloseable {
+
+    private static final int DEFAULT_THREADS = 4;
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private final SouvenirsService service;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, CompletableFuture<Void>> pendingByManufacturer = new HashMap<>();
+    private CompletableFuture<?> pendingBarrier;
+
+    /**
+     * Initializes a new instance of AsyncSouvenirsService with the default pool size and queue capacity.
+     *
+     * @param service The service to run the operations on.
+     */
+    public AsyncSouvenirsService(SouvenirsService service) {
+        this(service, DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Initializes a new instance of AsyncSouvenirsService.
+     *
+     * @param service       The service to run the operations on.
+     * @param threads       The number of storage threads.
+     * @param queueCapacity The maximum number of operations waiting for a thread.
+     */
+    public AsyncSouvenirsService(SouvenirsService service, int threads, int queueCapacity) {
+        this.service = service;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "souvenir-storage-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Gets the number of operations waiting for a storage thread.
+     *
+     * @return The queue length.
+     */
+    public int getQueuedOperations() {
+        return executor.getQueue().size();
+    }
+
+    // Lifecycle and snapshots
+
+    public CompletableFuture<StartupReport> start() {
+        return query(service::start);
+    }
+
+    /**
+     * Returns the current catalog snapshot. Only the first call waits for the catalog to load;
+     * reading the snapshot never locks.
+     *
+     * @return The current catalog snapshot.
+     */
+    public CompletableFuture<CatalogSnapshot> snapshot() {
+        return query(service::snapshot);
+    }
+
+    /**
+     * Replaces the catalog. Runs after every mutation submitted before it; mutations submitted after it,
+     * of any manufacturer, run once it has finished.
+     *
+     * @param manufacturerList The new catalog.
+     * @return A future completed once the catalog is saved.
+     */
+    public CompletableFuture<Void> save(List<Manufacturer> manufacturerList) {
+        return barrier(() -> {
+            service.save(manufacturerList);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> checkpoint() {
+        return query(() -> {
+            service.checkpoint();
+            return null;
+        });
+    }
+
+    // Mutations
+
+    public CompletableFuture<Void> addManufacturer(Manufacturer newManufacturer) {
+        return mutate(List.of(newManufacturer.getName()), () -> service.addManufacturer(newManufacturer));
+    }
+
+    public CompletableFuture<Void> addSouvenir(String manufacturerName, Souvenir newSouvenir) {
+        return mutate(List.of(manufacturerName), () -> service.addSouvenir(manufacturerName, newSouvenir));
+    }
+
+    public CompletableFuture<Void> addAllSouvenirs(String manufacturerName, List<Souvenir> newSouvenirList) {
+        return mutate(List.of(manufacturerName), () -> service.addAllSouvenirs(manufacturerName, newSouvenirList));
+    }
+
+    public CompletableFuture<Void> removeManufacturerAndSouvenirs(String manufacturerNameToDelete) {
+        return mutate(List.of(manufacturerNameToDelete), () -> service.removeManufacturerAndSouvenirs(manufacturerNameToDelete));
+    }
+
+    public CompletableFuture<Void> updateManufacturerName(String oldManufacturerName, String newManufacturerName) {
+        return mutate(List.of(oldManufacturerName, newManufacturerName),
+                () -> service.updateManufacturerName(oldManufacturerName, newManufacturerName));
+    }
+
+    public CompletableFuture<Void> updateManufacturerCountry(String manufacturerName, String newManufacturerCountry) {
+        return mutate(List.of(manufacturerName), () -> service.updateManufacturerCountry(manufacturerName, newManufacturerCountry));
+    }
+
+    public CompletableFuture<Void> updateSouvenirName(String manufacturerName, String oldSouvenirName, String newSouvenirName) {
+        return mutate(List.of(manufacturerName), () -> service.updateSouvenirName(manufacturerName, oldSouvenirName, newSouvenirName));
+    }
+
+    public CompletableFuture<Void> updateSouvenirManufacturerDetails(String manufacturerName, String souvenirName, String newManufacturerDetails) {
+        return mutate(List.of(manufacturerName),
+                () -> service.updateSouvenirManufacturerDetails(manufacturerName, souvenirName, newManufacturerDetails));
+    }
+
+    public CompletableFuture<Void> updateSouvenirReleaseDate(String manufacturerName, String souvenirName, LocalDateTime newDate) {
+        return mutate(List.of(manufacturerName), () -> service.updateSouvenirReleaseDate(manufacturerName, souvenirName, newDate));
+    }
+
+    public CompletableFuture<Void> updateSouvenirReleaseDate(String manufacturerName, String souvenirName, String newDate) {
+        return mutate(List.of(manufacturerName), () -> service.updateSouvenirReleaseDate(manufacturerName, souvenirName, newDate));
+    }
+
+    public CompletableFuture<Void> updateSouvenirPrice(String manufacturerName, String souvenirName, double newPrice) {
+        return mutate(List.of(manufacturerName), () -> service.updateSouvenirPrice(manufacturerName, souvenirName, newPrice));
+    }
+
+    public CompletableFuture<Void> updateSouvenirPrice(String manufacturerName, String souvenirName, Money newPrice) {
+        return mutate(List.of(manufacturerName), () -> service.updateSouvenirPrice(manufacturerName, souvenirName, newPrice));
+    }
+
+    // Bulk mutations; each is a barrier like save
+
+    public CompletableFuture<Integer> removeSouvenirs(SouvenirQuery query) {
+        return barrier(() -> service.removeSouvenirs(query));
+    }
+
+    public CompletableFuture<Integer> removeSouvenirsIf(Predicate<Souvenir> condition) {
+        return barrier(() -> service.removeSouvenirsIf(condition));
+    }
+
+    public CompletableFuture<Integer> updateSouvenirPrices(SouvenirQuery query, UnaryOperator<Money> transform) {
+        return barrier(() -> service.updateSouvenirPrices(query, transform));
+    }
+
+    public CompletableFuture<Integer> adjustSouvenirPrices(SouvenirQuery query, double percent) {
+        return barrier(() -> service.adjustSouvenirPrices(query, percent));
+    }
+
+    // Queries
+
+    public CompletableFuture<Manufacturer> findManufacturerByName(String manufacturerName) {
+        return query(() -> service.findManufacturerByName(manufacturerName));
+    }
+
+    public CompletableFuture<Souvenir> findSouvenirByManufacturerAndName(String manufacturerName, String souvenirName) {
+        return query(() -> service.findSouvenirByManufacturerAndName(manufacturerName, souvenirName));
+    }
+
+    public CompletableFuture<List<Souvenir>> findSouvenirsByManufacturerName(String existingManufacturerName) {
+        return query(() -> service.findSouvenirsByManufacturerName(existingManufacturerName));
+    }
+
+    public CompletableFuture<List<Souvenir>> findSouvenirsByManufacturerCountry(String existingManufacturerCountry) {
+        return query(() -> service.findSouvenirsByManufacturerCountry(existingManufacturerCountry));
+    }
+
+    public CompletableFuture<List<Souvenir>> findSouvenirsByPriceLowerThan(double priceLimit) {
+        return query(() -> service.findSouvenirsByPriceLowerThan(priceLimit));
+    }
+
+    public CompletableFuture<List<Manufacturer>> findManufacturersByPriceLowerThan(double priceLimit) {
+        return query(() -> service.findManufacturersByPriceLowerThan(priceLimit));
+    }
+
+    public CompletableFuture<List<Souvenir>> findSouvenirsByPriceLowerThan(Money priceLimit) {
+        return query(() -> service.findSouvenirsByPriceLowerThan(priceLimit));
+    }
+
+    public CompletableFuture<List<Manufacturer>> findManufacturersByPriceLowerThan(Money priceLimit) {
+        return query(() -> service.findManufacturersByPriceLowerThan(priceLimit));
+    }
+
+    public CompletableFuture<List<Manufacturer>> findManufacturersBySouvenirAndReleaseDate(String souvenirName, int year) {
+        return query(() -> service.findManufacturersBySouvenirAndReleaseDate(souvenirName, year));
+    }
+
+    public CompletableFuture<List<Souvenir>> findSouvenirsByReleaseDate(int year) {
+        return query(() -> service.findSouvenirsByReleaseDate(year));
+    }
+
+    public CompletableFuture<List<Souvenir>> findSouvenirs(SouvenirQuery query) {
+        return query(() -> service.findSouvenirs(query));
+    }
+
+    public CompletableFuture<List<Manufacturer>> findManufacturers(SouvenirQuery query) {
+        return query(() -> service.findManufacturers(query));
+    }
+
+    public CompletableFuture<List<Souvenir>> findCheapestSouvenirs(SouvenirQuery scope, int k) {
+        return query(() -> service.findCheapestSouvenirs(scope, k));
+    }
+
+    public CompletableFuture<List<Souvenir>> findMostExpensiveSouvenirs(SouvenirQuery scope, int k) {
+        return query(() -> service.findMostExpensiveSouvenirs(scope, k));
+    }
+
+    public CompletableFuture<List<Souvenir>> findNewestSouvenirs(SouvenirQuery scope, int k) {
+        return query(() -> service.findNewestSouvenirs(scope, k));
+    }
+
+    public CompletableFuture<String> explain(SouvenirQuery query) {
+        return query(() -> service.explain(query));
+    }
+
+    public CompletableFuture<List<NameMatch>> searchNames(String text, int limit) {
+        return query(() -> service.searchNames(text, limit));
+    }
+
+    public CompletableFuture<List<NameMatch>> searchSouvenirNames(String text, int limit) {
+        return query(() -> service.searchSouvenirNames(text, limit));
+    }
+
+    public CompletableFuture<List<NameMatch>> searchManufacturerNames(String text, int limit) {
+        return query(() -> service.searchManufacturerNames(text, limit));
+    }
+
+    public CompletableFuture<PriceStatistics> getManufacturerStatistics(String manufacturerName) {
+        return query(() -> service.getManufacturerStatistics(manufacturerName));
+    }
+
+    public CompletableFuture<PriceStatistics> getCountryStatistics(String country) {
+        return query(() -> service.getCountryStatistics(country));
+    }
+
+    public CompletableFuture<PriceStatistics> getYearStatistics(int year) {
+        return query(() -> service.getYearStatistics(year));
+    }
+
+    public CompletableFuture<Map<String, PriceStatistics>> getStatisticsByManufacturer() {
+        return query(service::getStatisticsByManufacturer);
+    }
+
+    public CompletableFuture<Map<String, PriceStatistics>> getStatisticsByCountry() {
+        return query(service::getStatisticsByCountry);
+    }
+
+    public CompletableFuture<Map<Integer, PriceStatistics>> getStatisticsByYear() {
+        return query(service::getStatisticsByYear);
+    }
+
+    /**
+     * Stops accepting operations and waits for the submitted ones to finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> CompletableFuture<T> query(Supplier<T> query) {
+        try {
+            return CompletableFuture.supplyAsync(query, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Runs a mutation once every earlier mutation of the given manufacturers and any earlier barrier
+     * have finished, successfully or not, and makes it the one later mutations of those manufacturers
+     * wait for.
+     */
+    private CompletableFuture<Void> mutate(Collection<String> manufacturerNames, Runnable mutation) {
+        synchronized (pendingByManufacturer) {
+            List<CompletableFuture<?>> earlier = new ArrayList<>();
+            for (String name : manufacturerNames) {
+                CompletableFuture<Void> pending = pendingByManufacturer.get(name);
+                if (pending != null) {
+                    earlier.add(pending);
+                }
+            }
+            if (pendingBarrier != null) {
+                earlier.add(pendingBarrier);
+            }
+            CompletableFuture<Void> next = runAfter(earlier, () -> {
+                mutation.run();
+                return null;
+            });
+            manufacturerNames.forEach(name -> pendingByManufacturer.put(name, next));
+            next.whenComplete((r, e) -> {
+                synchronized (pendingByManufacturer) {
+                    manufacturerNames.forEach(name -> pendingByManufacturer.remove(name, next));
+                }
+            });
+            return next;
+        }
+    }
+
+    /**
+     * Runs an operation that may touch any manufacturer once every earlier mutation and barrier have
+     * finished, successfully or not, and makes it the one every later mutation waits for.
+     */
+    private <T> CompletableFuture<T> barrier(Supplier<T> operation) {
+        synchronized (pendingByManufacturer) {
+            List<CompletableFuture<?>> earlier = new ArrayList<>(pendingByManufacturer.values());
+            if (pendingBarrier != null) {
+                earlier.add(pendingBarrier);
+            }
+            CompletableFuture<T> next = runAfter(earlier, operation);
+            pendingBarrier = next;
+            next.whenComplete((r, e) -> {
+                synchronized (pendingByManufacturer) {
+                    if (pendingBarrier == next) {
+                        pendingBarrier = null;
+                    }
+                }
+            });
+            return next;
+        }
+    }
+
+    /**
+     * Submits an operation once the given operations have finished, successfully or not.
+     */
+    private <T> CompletableFuture<T> runAfter(List<CompletableFuture<?>> earlier, Supplier<T> operation) {
+        CompletableFuture<Void> ready = earlier.isEmpty()
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.allOf(earlier.toArray(CompletableFuture[]::new)).handle((r, e) -> null);
+        // Submit from the completing stage rather than with thenRunAsync, so a rejection fails this
+        // future instead of being thrown into the thread that completed the earlier mutation.
+        return ready.thenCompose(ignored -> query(operation));
+    }
+}
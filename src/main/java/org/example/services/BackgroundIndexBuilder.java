@@ -0,0 +1,197 @@
+package org.example.services;
+
+import org.example.entities.Manufacturer;
+import org.example.entities.Money;
+import org.example.entities.Souvenir;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Builds the secondary indexes on a background thread after the catalog is loaded, so the service can
+ * answer reads before they are complete.
+ * <p>
+ * The build walks the manufacturers in chunks, holding the service read lock for one chunk at a time, so
+ * writers can interleave. While building, changes are forwarded to the indexes only for manufacturers that
+ * were already indexed; a manufacturer that hasn't been reached yet is indexed with its state at the time
+ * the build gets to it. Once the build completes every change is forwarded.
+ */
+class BackgroundIndexBuilder implements CatalogListener {
+
+    private static final int CHUNK_SIZE = 256;
+
+    private final ReadWriteLock lock;
+    private final CatalogKeyIndex keyIndex;
+    private final List<CatalogListener> indexes;
+    private final Set<Manufacturer> indexed = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private volatile boolean ready;
+    private boolean building;
+    private long generation;
+    private volatile CompletableFuture<Void> built = new CompletableFuture<>();
+    private volatile long buildNanos = -1;
+
+    BackgroundIndexBuilder(ReadWriteLock lock, CatalogKeyIndex keyIndex, List<CatalogListener> indexes) {
+        this.lock = lock;
+        this.keyIndex = keyIndex;
+        this.indexes = indexes;
+    }
+
+    /**
+     * Checks whether the indexes reflect the whole catalog.
+     *
+     * @return true once the build has completed.
+     */
+    boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Blocks until the indexes reflect the whole catalog. Must not be called while holding the service lock.
+     */
+    void await() {
+        while (!ready) {
+            built.join();
+        }
+    }
+
+    /**
+     * Gets how long the last completed build took.
+     *
+     * @return The duration in nanoseconds, or -1 while the first build is running.
+     */
+    long getBuildNanos() {
+        return buildNanos;
+    }
+
+    @Override
+    public void catalogLoaded(List<Manufacturer> manufacturers) {
+        generation++;
+        ready = false;
+        building = true;
+        indexed.clear();
+        indexes.forEach(index -> index.catalogLoaded(List.of()));
+        if (built.isDone()) {
+            built = new CompletableFuture<>();
+        }
+        Manufacturer[] pending = manufacturers.toArray(new Manufacturer[0]);
+        long buildGeneration = generation;
+        Thread thread = new Thread(() -> build(buildGeneration, pending), "souvenir-index-builder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void build(long buildGeneration, Manufacturer[] pending) {
+        long start = System.nanoTime();
+        for (int from = 0; from < pending.length; from += CHUNK_SIZE) {
+            lock.readLock().lock();
+            try {
+                if (buildGeneration != generation) {
+                    return;
+                }
+                int to = Math.min(pending.length, from + CHUNK_SIZE);
+                for (int i = from; i < to; i++) {
+                    Manufacturer manufacturer = pending[i];
+                    // Skip manufacturers removed since the build started.
+                    if (keyIndex.manufacturer(manufacturer.getName()) == manufacturer && indexed.add(manufacturer)) {
+                        indexes.forEach(index -> index.manufacturerAdded(manufacturer));
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            if (buildGeneration != generation) {
+                return;
+            }
+            building = false;
+            indexed.clear();
+            buildNanos = System.nanoTime() - start;
+            ready = true;
+            built.complete(null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean forward(Manufacturer manufacturer) {
+        return ready || (building && indexed.contains(manufacturer));
+    }
+
+    @Override
+    public void manufacturerAdded(Manufacturer manufacturer) {
+        if (ready || (building && indexed.add(manufacturer))) {
+            indexes.forEach(index -> index.manufacturerAdded(manufacturer));
+        }
+    }
+
+    @Override
+    public void manufacturerRemoved(Manufacturer manufacturer) {
+        if (ready || (building && indexed.remove(manufacturer))) {
+            indexes.forEach(index -> index.manufacturerRemoved(manufacturer));
+        }
+    }
+
+    @Override
+    public void manufacturerRenamed(Manufacturer manufacturer, String oldName) {
+        if (forward(manufacturer)) {
+            indexes.forEach(index -> index.manufacturerRenamed(manufacturer, oldName));
+        }
+    }
+
+    @Override
+    public void manufacturerCountryChanged(Manufacturer manufacturer, String oldCountry) {
+        if (forward(manufacturer)) {
+            indexes.forEach(index -> index.manufacturerCountryChanged(manufacturer, oldCountry));
+        }
+    }
+
+    @Override
+    public void souvenirAdded(Manufacturer manufacturer, Souvenir souvenir) {
+        if (forward(manufacturer)) {
+            indexes.forEach(index -> index.souvenirAdded(manufacturer, souvenir));
+        }
+    }
+
+    @Override
+    public void souvenirRemoved(Manufacturer manufacturer, Souvenir souvenir) {
+        if (forward(manufacturer)) {
+            indexes.forEach(index -> index.souvenirRemoved(manufacturer, souvenir));
+        }
+    }
+
+    @Override
+    public void souvenirRenamed(Manufacturer manufacturer, Souvenir souvenir, String oldName) {
+        if (forward(manufacturer)) {
+            indexes.forEach(index -> index.souvenirRenamed(manufacturer, souvenir, oldName));
+        }
+    }
+
+    @Override
+    public void souvenirPriceChanged(Manufacturer manufacturer, Souvenir souvenir, Money oldPrice) {
+        if (forward(manufacturer)) {
+            indexes.forEach(index -> index.souvenirPriceChanged(manufacturer, souvenir, oldPrice));
+        }
+    }
+
+    @Override
+    public void souvenirReleaseDateChanged(Manufacturer manufacturer, Souvenir souvenir, LocalDateTime oldReleaseDate) {
+        if (forward(manufacturer)) {
+            indexes.forEach(index -> index.souvenirReleaseDateChanged(manufacturer, souvenir, oldReleaseDate));
+        }
+    }
+
+    @Override
+    public void souvenirDetailsChanged(Manufacturer manufacturer, Souvenir souvenir) {
+        if (forward(manufacturer)) {
+            indexes.forEach(index -> index.souvenirDetailsChanged(manufacturer, souvenir));
+        }
+    }
+}
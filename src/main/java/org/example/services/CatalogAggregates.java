@@ -0,0 +1,257 @@
+package org.example.services;
+
+import org.example.entities.Manufacturer;
+import org.example.entities.Money;
+import org.example.entities.Souvenir;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Price aggregates per manufacturer, per country and per release year, maintained on every change
+ * instead of being recomputed by scanning the catalog.
+ * <p>
+ * Prices are aggregated as exact minor units, separately per currency, so totals never drift and
+ * amounts in different currencies are never added up. Counts and totals update in constant time.
+ * Minimums and maximums stay correct under deletes by keeping a counted multiset of the values,
+ * which makes those updates logarithmic in the group size.
+ * A country aggregates the per-manufacturer aggregates rather than individual souvenirs, so moving
+ * a manufacturer to another country costs the same as a single price change.
+ */
+class CatalogAggregates implements CatalogListener {
+
+    /**
+     * Running aggregate over contributions, each bringing a count, a total, a minimum and a maximum.
+     * Prices are kept as minor units and aggregated separately per currency.
+     */
+    static final class Accumulator {
+        private final Map<Currency, Amounts> byCurrency = new HashMap<>();
+
+        void add(Money price) {
+            long minorUnits = price.getMinorUnits();
+            amounts(price.getCurrency()).add(1, minorUnits, minorUnits, minorUnits);
+        }
+
+        void remove(Money price) {
+            long minorUnits = price.getMinorUnits();
+            remove(price.getCurrency(), 1, minorUnits, minorUnits, minorUnits);
+        }
+
+        void add(PriceStatistics statistics) {
+            for (Currency currency : statistics.getCurrencies()) {
+                PriceStatistics part = statistics.forCurrency(currency);
+                amounts(currency).add(part.getCount(), part.getTotalValueMoney().getMinorUnits(),
+                        part.getMinPriceMoney().getMinorUnits(), part.getMaxPriceMoney().getMinorUnits());
+            }
+        }
+
+        void remove(PriceStatistics statistics) {
+            for (Currency currency : statistics.getCurrencies()) {
+                PriceStatistics part = statistics.forCurrency(currency);
+                remove(currency, part.getCount(), part.getTotalValueMoney().getMinorUnits(),
+                        part.getMinPriceMoney().getMinorUnits(), part.getMaxPriceMoney().getMinorUnits());
+            }
+        }
+
+        private Amounts amounts(Currency currency) {
+            return byCurrency.computeIfAbsent(currency, c -> new Amounts());
+        }
+
+        private void remove(Currency currency, long count, long total, long min, long max) {
+            Amounts amounts = byCurrency.get(currency);
+            if (amounts != null) {
+                amounts.remove(count, total, min, max);
+                if (amounts.count == 0) {
+                    byCurrency.remove(currency);
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return byCurrency.isEmpty();
+        }
+
+        PriceStatistics statistics() {
+            List<PriceStatistics> perCurrency = new ArrayList<>(byCurrency.size());
+            byCurrency.forEach((currency, amounts) -> perCurrency.add(new PriceStatistics(amounts.count, currency,
+                    amounts.mins.firstKey(), amounts.maxes.lastKey(), amounts.total)));
+            return PriceStatistics.of(perCurrency);
+        }
+    }
+
+    /**
+     * The aggregate of one currency, in minor units.
+     */
+    private static final class Amounts {
+        private long count;
+        private long total;
+        private final TreeMap<Long, Integer> mins = new TreeMap<>();
+        private final TreeMap<Long, Integer> maxes = new TreeMap<>();
+
+        private void add(long count, long total, long min, long max) {
+            this.count += count;
+            this.total = Math.addExact(this.total, total);
+            mins.merge(min, 1, Integer::sum);
+            maxes.merge(max, 1, Integer::sum);
+        }
+
+        private void remove(long count, long total, long min, long max) {
+            this.count -= count;
+            this.total = this.count == 0 ? 0 : this.total - total;
+            decrement(mins, min);
+            decrement(maxes, max);
+        }
+
+        private static void decrement(TreeMap<Long, Integer> multiset, long value) {
+            multiset.computeIfPresent(value, (k, n) -> n == 1 ? null : n - 1);
+        }
+    }
+
+    private final Map<Manufacturer, Accumulator> byManufacturer = new IdentityHashMap<>();
+    private final Map<String, Accumulator> byCountry = new HashMap<>();
+    private final Map<String, String> countryNames = new HashMap<>();
+    private final Map<Integer, Accumulator> byYear = new HashMap<>();
+
+    PriceStatistics manufacturer(Manufacturer manufacturer) {
+        Accumulator accumulator = manufacturer == null ? null : byManufacturer.get(manufacturer);
+        return accumulator == null ? PriceStatistics.EMPTY : accumulator.statistics();
+    }
+
+    PriceStatistics country(String country) {
+        Accumulator accumulator = byCountry.get(SouvenirAttributeIndex.countryKey(country));
+        return accumulator == null ? PriceStatistics.EMPTY : accumulator.statistics();
+    }
+
+    PriceStatistics year(int year) {
+        Accumulator accumulator = byYear.get(year);
+        return accumulator == null ? PriceStatistics.EMPTY : accumulator.statistics();
+    }
+
+    Map<String, PriceStatistics> allManufacturers() {
+        Map<String, PriceStatistics> result = new LinkedHashMap<>();
+        byManufacturer.forEach((m, a) -> result.put(m.getName(), a.statistics()));
+        return result;
+    }
+
+    Map<String, PriceStatistics> allCountries() {
+        Map<String, PriceStatistics> result = new LinkedHashMap<>();
+        byCountry.forEach((key, a) -> result.put(countryNames.get(key), a.statistics()));
+        return result;
+    }
+
+    Map<Integer, PriceStatistics> allYears() {
+        Map<Integer, PriceStatistics> result = new TreeMap<>();
+        byYear.forEach((year, a) -> result.put(year, a.statistics()));
+        return result;
+    }
+
+    @Override
+    public void catalogLoaded(List<Manufacturer> manufacturers) {
+        byManufacturer.clear();
+        byCountry.clear();
+        countryNames.clear();
+        byYear.clear();
+        manufacturers.forEach(this::manufacturerAdded);
+    }
+
+    @Override
+    public void manufacturerAdded(Manufacturer manufacturer) {
+        byManufacturer.put(manufacturer, new Accumulator());
+        manufacturer.getSouvenirs().forEach(s -> souvenirAdded(manufacturer, s));
+    }
+
+    @Override
+    public void manufacturerRemoved(Manufacturer manufacturer) {
+        Accumulator accumulator = byManufacturer.remove(manufacturer);
+        if (accumulator != null) {
+            updateCountry(manufacturer.getCountry(), accumulator.statistics(), PriceStatistics.EMPTY);
+        }
+        for (Souvenir souvenir : manufacturer.getSouvenirs()) {
+            removeFromYear(souvenir.getReleaseDate(), souvenir.getPriceMoney());
+        }
+    }
+
+    @Override
+    public void manufacturerCountryChanged(Manufacturer manufacturer, String oldCountry) {
+        PriceStatistics statistics = manufacturer(manufacturer);
+        updateCountry(oldCountry, statistics, PriceStatistics.EMPTY);
+        updateCountry(manufacturer.getCountry(), PriceStatistics.EMPTY, statistics);
+    }
+
+    @Override
+    public void souvenirAdded(Manufacturer manufacturer, Souvenir souvenir) {
+        changeManufacturer(manufacturer, a -> a.add(souvenir.getPriceMoney()));
+        addToYear(souvenir.getReleaseDate(), souvenir.getPriceMoney());
+    }
+
+    @Override
+    public void souvenirRemoved(Manufacturer manufacturer, Souvenir souvenir) {
+        changeManufacturer(manufacturer, a -> a.remove(souvenir.getPriceMoney()));
+        removeFromYear(souvenir.getReleaseDate(), souvenir.getPriceMoney());
+    }
+
+    @Override
+    public void souvenirPriceChanged(Manufacturer manufacturer, Souvenir souvenir, Money oldPrice) {
+        changeManufacturer(manufacturer, a -> {
+            a.remove(oldPrice);
+            a.add(souvenir.getPriceMoney());
+        });
+        removeFromYear(souvenir.getReleaseDate(), oldPrice);
+        addToYear(souvenir.getReleaseDate(), souvenir.getPriceMoney());
+    }
+
+    @Override
+    public void souvenirReleaseDateChanged(Manufacturer manufacturer, Souvenir souvenir, LocalDateTime oldReleaseDate) {
+        removeFromYear(oldReleaseDate, souvenir.getPriceMoney());
+        addToYear(souvenir.getReleaseDate(), souvenir.getPriceMoney());
+    }
+
+    /**
+     * Applies a change to the aggregate of a manufacturer and moves its contribution to the country along.
+     */
+    private void changeManufacturer(Manufacturer manufacturer, Consumer<Accumulator> change) {
+        Accumulator accumulator = byManufacturer.computeIfAbsent(manufacturer, m -> new Accumulator());
+        PriceStatistics before = accumulator.statistics();
+        change.accept(accumulator);
+        updateCountry(manufacturer.getCountry(), before, accumulator.statistics());
+    }
+
+    private void updateCountry(String country, PriceStatistics before, PriceStatistics after) {
+        String key = SouvenirAttributeIndex.countryKey(country);
+        Accumulator accumulator = byCountry.computeIfAbsent(key, k -> new Accumulator());
+        countryNames.putIfAbsent(key, country);
+        accumulator.remove(before);
+        accumulator.add(after);
+        if (accumulator.isEmpty()) {
+            byCountry.remove(key);
+            countryNames.remove(key);
+        }
+    }
+
+    private void addToYear(LocalDateTime releaseDate, Money price) {
+        if (releaseDate != null) {
+            byYear.computeIfAbsent(releaseDate.getYear(), y -> new Accumulator()).add(price);
+        }
+    }
+
+    private void removeFromYear(LocalDateTime releaseDate, Money price) {
+        if (releaseDate == null) {
+            return;
+        }
+        Accumulator accumulator = byYear.get(releaseDate.getYear());
+        if (accumulator != null) {
+            accumulator.remove(price);
+            if (accumulator.isEmpty()) {
+                byYear.remove(releaseDate.getYear());
+            }
+        }
+    }
+}
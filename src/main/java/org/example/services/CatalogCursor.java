@@ -0,0 +1,61 @@
+package org.example.services;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Walks the results of a query page by page. The query runs lazily against one {@link CatalogSnapshot}:
+ * each page computes only as many results as it returns, and moving to the next page continues where the
+ * previous one stopped instead of running the query again. The cursor holds the snapshot and its position,
+ * never the result set, and keeps seeing the catalog as it was when the cursor was opened.
+ * <p>
+ * A cursor is meant for one thread.
+ *
+ * @param <T> The type of the results.
+ */
+public final class CatalogCursor<T> {
+
+    private final Iterator<T> results;
+    private int position;
+
+    CatalogCursor(Iterator<T> results) {
+        this.results = results;
+    }
+
+    /**
+     * Checks whether more results remain.
+     *
+     * @return true if {@link #nextPage(int)} will return at least one result.
+     */
+    public boolean hasNext() {
+        return results.hasNext();
+    }
+
+    /**
+     * Gets the next page of results.
+     *
+     * @param pageSize The maximum number of results to return.
+     * @return Up to pageSize results; empty once the cursor is exhausted.
+     */
+    public List<T> nextPage(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        List<T> page = new ArrayList<>(pageSize);
+        while (page.size() < pageSize && results.hasNext()) {
+            page.add(results.next());
+        }
+        position += page.size();
+        return page;
+    }
+
+    /**
+     * Gets the number of results returned so far.
+     *
+     * @return The position of the cursor.
+     */
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.services;
+
+import org.example.entities.Manufacturer;
+import org.example.entities.Souvenir;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash index from manufacturer name to manufacturer and from (manufacturer name, souvenir name)
+ * to souvenir. Point lookups and updates through it don't depend on the catalog size.
+ */
+class CatalogKeyIndex implements CatalogListener {
+
+    /**
+     * Composite key of a souvenir: souvenir names are unique per manufacturer.
+     */
+    record SouvenirKey(String manufacturerName, String souvenirName) {
+    }
+
+    private Map<String, Manufacturer> manufacturersByName = new HashMap<>();
+    private Map<SouvenirKey, Souvenir> souvenirsByKey = new HashMap<>();
+
+    /**
+     * Finds a manufacturer by name.
+     *
+     * @param manufacturerName The name of the manufacturer.
+     * @return The manufacturer or null if not found.
+     */
+    Manufacturer manufacturer(String manufacturerName) {
+        return manufacturersByName.get(manufacturerName);
+    }
+
+    /**
+     * Finds a souvenir by its composite key.
+     *
+     * @param manufacturerName The name of the manufacturer.
+     * @param souvenirName     The name of the souvenir.
+     * @return The souvenir or null if not found.
+     */
+    Souvenir souvenir(String manufacturerName, String souvenirName) {
+        return souvenirsByKey.get(new SouvenirKey(manufacturerName, souvenirName));
+    }
+
+    boolean containsManufacturer(String manufacturerName) {
+        return manufacturersByName.containsKey(manufacturerName);
+    }
+
+    boolean containsSouvenir(String manufacturerName, String souvenirName) {
+        return souvenirsByKey.containsKey(new SouvenirKey(manufacturerName, souvenirName));
+    }
+
+    int manufacturerCount() {
+        return manufacturersByName.size();
+    }
+
+    int souvenirCount() {
+        return souvenirsByKey.size();
+    }
+
+    /**
+     * Rebuilds the index, with maps sized for the catalog up front so they don't rehash while filling.
+     */
+    @Override
+    public void catalogLoaded(List<Manufacturer> manufacturers) {
+        int souvenirCount = 0;
+        for (Manufacturer manufacturer : manufacturers) {
+            souvenirCount += manufacturer.getSouvenirs().size();
+        }
+        manufacturersByName = new HashMap<>(capacityFor(manufacturers.size()));
+        souvenirsByKey = new HashMap<>(capacityFor(souvenirCount));
+        manufacturers.forEach(this::manufacturerAdded);
+    }
+
+    private static int capacityFor(int entries) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) entries * 4 / 3 + 1);
+    }
+
+    @Override
+    public void manufacturerAdded(Manufacturer manufacturer) {
+        manufacturersByName.put(manufacturer.getName(), manufacturer);
+        manufacturer.getSouvenirs().forEach(s -> souvenirAdded(manufacturer, s));
+    }
+
+    @Override
+    public void manufacturerRemoved(Manufacturer manufacturer) {
+        manufacturersByName.remove(manufacturer.getName());
+        manufacturer.getSouvenirs().forEach(s -> souvenirRemoved(manufacturer, s));
+    }
+
+    @Override
+    public void manufacturerRenamed(Manufacturer manufacturer, String oldName) {
+        manufacturersByName.remove(oldName);
+        manufacturersByName.put(manufacturer.getName(), manufacturer);
+        for (Souvenir souvenir : manufacturer.getSouvenirs()) {
+            souvenirsByKey.remove(new SouvenirKey(oldName, souvenir.getName()));
+            souvenirsByKey.put(new SouvenirKey(manufacturer.getName(), souvenir.getName()), souvenir);
+        }
+    }
+
+    @Override
+    public void souvenirAdded(Manufacturer manufacturer, Souvenir souvenir) {
+        souvenirsByKey.put(new SouvenirKey(manufacturer.getName(), souvenir.getName()), souvenir);
+    }
+
+    @Override
+    public void souvenirRemoved(Manufacturer manufacturer, Souvenir souvenir) {
+        souvenirsByKey.remove(new SouvenirKey(manufacturer.getName(), souvenir.getName()));
+    }
+
+    @Override
+    public void souvenirRenamed(Manufacturer manufacturer, Souvenir souvenir, String oldName) {
+        souvenirsByKey.remove(new SouvenirKey(manufacturer.getName(), oldName));
+        souvenirsByKey.put(new SouvenirKey(manufacturer.getName(), souvenir.getName()), souvenir);
+    }
+}
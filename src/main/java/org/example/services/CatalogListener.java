@@ -0,0 +1,129 @@
+package org.example.services;
+
+import org.example.entities.Manufacturer;
+import org.example.entities.Money;
+import org.example.entities.Souvenir;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Receives every change the {@link SouvenirsService} makes to its in-memory catalog.
+ * Indexes and other derived views implement this interface to stay consistent with the catalog
+ * without rescanning it. Each callback runs after the entity has already been changed.
+ */
+public interface CatalogListener {
+
+    /**
+     * Called when the whole catalog is replaced, e.g. after it is loaded from storage.
+     *
+     * @param manufacturers The new catalog.
+     */
+    default void catalogLoaded(List<Manufacturer> manufacturers) {
+    }
+
+    /**
+     * Called before the changes of a batch, such as a bulk removal or repricing, are reported. The callbacks
+     * up to {@link #batchFinished()} belong to one operation, so a listener that publishes state may hold it
+     * back until the batch is complete.
+     */
+    default void batchStarted() {
+    }
+
+    /**
+     * Called after every change of a batch has been reported.
+     */
+    default void batchFinished() {
+    }
+
+    /**
+     * Called when a manufacturer, together with any souvenirs it already holds, is added.
+     *
+     * @param manufacturer The added manufacturer.
+     */
+    default void manufacturerAdded(Manufacturer manufacturer) {
+    }
+
+    /**
+     * Called when a manufacturer and all of its souvenirs are removed.
+     *
+     * @param manufacturer The removed manufacturer.
+     */
+    default void manufacturerRemoved(Manufacturer manufacturer) {
+    }
+
+    /**
+     * Called when a manufacturer is renamed.
+     *
+     * @param manufacturer The renamed manufacturer.
+     * @param oldName      The previous name.
+     */
+    default void manufacturerRenamed(Manufacturer manufacturer, String oldName) {
+    }
+
+    /**
+     * Called when the country of a manufacturer changes.
+     *
+     * @param manufacturer The updated manufacturer.
+     * @param oldCountry   The previous country.
+     */
+    default void manufacturerCountryChanged(Manufacturer manufacturer, String oldCountry) {
+    }
+
+    /**
+     * Called when a souvenir is added to a manufacturer.
+     *
+     * @param manufacturer The owning manufacturer.
+     * @param souvenir     The added souvenir.
+     */
+    default void souvenirAdded(Manufacturer manufacturer, Souvenir souvenir) {
+    }
+
+    /**
+     * Called when a souvenir is removed from a manufacturer.
+     *
+     * @param manufacturer The owning manufacturer.
+     * @param souvenir     The removed souvenir.
+     */
+    default void souvenirRemoved(Manufacturer manufacturer, Souvenir souvenir) {
+    }
+
+    /**
+     * Called when a souvenir is renamed.
+     *
+     * @param manufacturer The owning manufacturer.
+     * @param souvenir     The renamed souvenir.
+     * @param oldName      The previous name.
+     */
+    default void souvenirRenamed(Manufacturer manufacturer, Souvenir souvenir, String oldName) {
+    }
+
+    /**
+     * Called when the price of a souvenir changes.
+     *
+     * @param manufacturer The owning manufacturer.
+     * @param souvenir     The updated souvenir.
+     * @param oldPrice     The previous price.
+     */
+    default void souvenirPriceChanged(Manufacturer manufacturer, Souvenir souvenir, Money oldPrice) {
+    }
+
+    /**
+     * Called when the release date of a souvenir changes.
+     *
+     * @param manufacturer   The owning manufacturer.
+     * @param souvenir       The updated souvenir.
+     * @param oldReleaseDate The previous release date, possibly null.
+     */
+    default void souvenirReleaseDateChanged(Manufacturer manufacturer, Souvenir souvenir, LocalDateTime oldReleaseDate) {
+    }
+
+    /**
+     * Called when the manufacturer details of a souvenir change.
+     *
+     * @param manufacturer The owning manufacturer.
+     * @param souvenir     The updated souvenir.
+     */
+    default void souvenirDetailsChanged(Manufacturer manufacturer, Souvenir souvenir) {
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.services;
+
+import org.example.entities.Manufacturer;
+import org.example.entities.Souvenir;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Immutable, consistent version of the whole catalog, as returned by {@link SouvenirsService#snapshot()}.
+ * <p>
+ * A snapshot never changes once published: writers build the next version by copying only the path to
+ * the changed manufacturer and share everything else. Manufacturers are held twice, in a persistent map by
+ * name and in a persistent sequence in catalog order, so neither lookups nor ordered walks copy or sort. A reader can therefore hold on to a snapshot and
+ * run any number of lookups against it from any thread, without locks, while writers keep going.
+ */
+public final class CatalogSnapshot {
+
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(0, PersistentMap.empty(), PersistentSequence.empty(), 0);
+
+    private final long version;
+    private final PersistentMap<String, ManufacturerSnapshot> manufacturers;
+    private final PersistentSequence<ManufacturerSnapshot> ordered;
+    private final long nextOrdinal;
+
+    CatalogSnapshot(long version, PersistentMap<String, ManufacturerSnapshot> manufacturers,
+                    PersistentSequence<ManufacturerSnapshot> ordered, long nextOrdinal) {
+        this.version = version;
+        this.manufacturers = manufacturers;
+        this.ordered = ordered;
+        this.nextOrdinal = nextOrdinal;
+    }
+
+    PersistentMap<String, ManufacturerSnapshot> manufacturerMap() {
+        return manufacturers;
+    }
+
+    PersistentSequence<ManufacturerSnapshot> manufacturerSequence() {
+        return ordered;
+    }
+
+    long nextOrdinal() {
+        return nextOrdinal;
+    }
+
+    /**
+     * Gets the version of the catalog; every change to the catalog publishes a snapshot with a higher version.
+     *
+     * @return The version number.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the number of manufacturers in the catalog.
+     *
+     * @return The number of manufacturers.
+     */
+    public int getManufacturerCount() {
+        return manufacturers.size();
+    }
+
+    /**
+     * Gets a manufacturer by name.
+     *
+     * @param manufacturerName The name of the manufacturer.
+     * @return The manufacturer, or null if there is none with that name.
+     */
+    public ManufacturerSnapshot getManufacturer(String manufacturerName) {
+        return manufacturers.get(manufacturerName);
+    }
+
+    /**
+     * Gets the souvenirs of a manufacturer.
+     *
+     * @param manufacturerName The name of the manufacturer.
+     * @return An unmodifiable list of souvenirs, empty if there is no manufacturer with that name.
+     */
+    public List<SouvenirSnapshot> getSouvenirs(String manufacturerName) {
+        ManufacturerSnapshot manufacturer = manufacturers.get(manufacturerName);
+        return manufacturer == null ? List.of() : manufacturer.getSouvenirs();
+    }
+
+    /**
+     * Gets a souvenir by its manufacturer and name.
+     *
+     * @param manufacturerName The name of the manufacturer.
+     * @param souvenirName     The name of the souvenir.
+     * @return The souvenir, or null if not found.
+     */
+    public SouvenirSnapshot getSouvenir(String manufacturerName, String souvenirName) {
+        ManufacturerSnapshot manufacturer = manufacturers.get(manufacturerName);
+        return manufacturer == null ? null : manufacturer.getSouvenir(souvenirName);
+    }
+
+    /**
+     * Gets all manufacturers in catalog order.
+     *
+     * @return An unmodifiable list of manufacturers; positional access costs O(log n).
+     */
+    public List<ManufacturerSnapshot> getManufacturers() {
+        return ordered.asList();
+    }
+
+    /**
+     * Finds the souvenirs that match a condition.
+     *
+     * @param condition The condition.
+     * @return The matching souvenirs in catalog order.
+     */
+    public List<SouvenirSnapshot> findSouvenirs(Predicate<SouvenirSnapshot> condition) {
+        List<SouvenirSnapshot> result = new ArrayList<>();
+        for (ManufacturerSnapshot manufacturer : getManufacturers()) {
+            for (SouvenirSnapshot souvenir : manufacturer.getSouvenirs()) {
+                if (condition.test(souvenir)) {
+                    result.add(souvenir);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Copies the snapshot back into entities, in catalog order. Used to write a checkpoint from a snapshot
+     * without holding the service lock.
+     *
+     * @return A new, mutable list of manufacturers with their souvenirs.
+     */
+    List<Manufacturer> toManufacturers() {
+        List<ManufacturerSnapshot> snapshots = getManufacturers();
+        List<Manufacturer> result = new ArrayList<>(snapshots.size());
+        try {
+            for (ManufacturerSnapshot snapshot : snapshots) {
+                Manufacturer manufacturer = new Manufacturer(snapshot.getName(), snapshot.getCountry());
+                for (SouvenirSnapshot souvenir : snapshot.getSouvenirs()) {
+                    manufacturer.addSouvenir(new Souvenir(souvenir.getName(), souvenir.getManufacturerDetails(),
+                            souvenir.getReleaseDate(), souvenir.getPriceMoney()));
+                }
+                result.add(manufacturer);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Can't copy catalog snapshot", e);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogSnapshot(version = " + version + ", manufacturers = " + manufacturers.size() + ")";
+    }
+}
@@ -0,0 +1,148 @@
+package org.example.services;
+
+import org.example.entities.Manufacturer;
+import org.example.entities.Money;
+import org.example.entities.Souvenir;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Publishes a new {@link CatalogSnapshot} after every change to the catalog.
+ * <p>
+ * Callbacks run under the service's write lock, so there is a single writer; it builds the next version
+ * from the current one and publishes it with a single volatile write. Readers only ever perform a volatile
+ * read of {@link #current()}. The changes of a batch are built up privately and published as one version,
+ * so readers never see a batch half applied.
+ */
+class CatalogVersions implements CatalogListener {
+
+    private volatile CatalogSnapshot current = CatalogSnapshot.EMPTY;
+    // The version being built while a batch is reported; only the writer touches it.
+    private CatalogSnapshot pending;
+    private boolean inBatch;
+
+    CatalogSnapshot current() {
+        return current;
+    }
+
+    @Override
+    public void catalogLoaded(List<Manufacturer> manufacturers) {
+        PersistentMap<String, ManufacturerSnapshot> map = PersistentMap.empty();
+        PersistentSequence<ManufacturerSnapshot> ordered = PersistentSequence.empty();
+        long ordinal = 0;
+        for (Manufacturer manufacturer : manufacturers) {
+            ManufacturerSnapshot snapshot = ManufacturerSnapshot.of(manufacturer, ordinal);
+            map = map.plus(manufacturer.getName(), snapshot);
+            ordered = ordered.plus(ordinal++, snapshot);
+        }
+        current = new CatalogSnapshot(current.getVersion() + 1, map, ordered, ordinal);
+    }
+
+    @Override
+    public void batchStarted() {
+        inBatch = true;
+    }
+
+    @Override
+    public void batchFinished() {
+        inBatch = false;
+        if (pending != null) {
+            current = pending;
+            pending = null;
+        }
+    }
+
+    /**
+     * Gets the version the next change builds on: the one being built by the current batch, if any.
+     */
+    private CatalogSnapshot latest() {
+        return pending != null ? pending : current;
+    }
+
+    @Override
+    public void manufacturerAdded(Manufacturer manufacturer) {
+        CatalogSnapshot snapshot = latest();
+        long ordinal = snapshot.nextOrdinal();
+        ManufacturerSnapshot added = ManufacturerSnapshot.of(manufacturer, ordinal);
+        publish(snapshot.manufacturerMap().plus(manufacturer.getName(), added),
+                snapshot.manufacturerSequence().plus(ordinal, added), ordinal + 1);
+    }
+
+    @Override
+    public void manufacturerRemoved(Manufacturer manufacturer) {
+        CatalogSnapshot snapshot = latest();
+        ManufacturerSnapshot old = snapshot.getManufacturer(manufacturer.getName());
+        if (old != null) {
+            publish(snapshot.manufacturerMap().minus(manufacturer.getName()),
+                    snapshot.manufacturerSequence().minus(old.ordinal()), snapshot.nextOrdinal());
+        }
+    }
+
+    @Override
+    public void manufacturerRenamed(Manufacturer manufacturer, String oldName) {
+        CatalogSnapshot snapshot = latest();
+        ManufacturerSnapshot old = snapshot.getManufacturer(oldName);
+        if (old != null) {
+            ManufacturerSnapshot renamed = old.withDetails(manufacturer);
+            publish(snapshot.manufacturerMap().minus(oldName).plus(manufacturer.getName(), renamed),
+                    snapshot.manufacturerSequence().plus(old.ordinal(), renamed), snapshot.nextOrdinal());
+        }
+    }
+
+    @Override
+    public void manufacturerCountryChanged(Manufacturer manufacturer, String oldCountry) {
+        update(manufacturer, m -> m.withDetails(manufacturer));
+    }
+
+    @Override
+    public void souvenirAdded(Manufacturer manufacturer, Souvenir souvenir) {
+        update(manufacturer, m -> m.withSouvenirAdded(souvenir));
+    }
+
+    @Override
+    public void souvenirRemoved(Manufacturer manufacturer, Souvenir souvenir) {
+        update(manufacturer, m -> m.withSouvenirReplaced(souvenir.getName(), null));
+    }
+
+    @Override
+    public void souvenirRenamed(Manufacturer manufacturer, Souvenir souvenir, String oldName) {
+        update(manufacturer, m -> m.withSouvenirReplaced(oldName, souvenir));
+    }
+
+    @Override
+    public void souvenirPriceChanged(Manufacturer manufacturer, Souvenir souvenir, Money oldPrice) {
+        update(manufacturer, m -> m.withSouvenirReplaced(souvenir.getName(), souvenir));
+    }
+
+    @Override
+    public void souvenirReleaseDateChanged(Manufacturer manufacturer, Souvenir souvenir, LocalDateTime oldReleaseDate) {
+        update(manufacturer, m -> m.withSouvenirReplaced(souvenir.getName(), souvenir));
+    }
+
+    @Override
+    public void souvenirDetailsChanged(Manufacturer manufacturer, Souvenir souvenir) {
+        update(manufacturer, m -> m.withSouvenirReplaced(souvenir.getName(), souvenir));
+    }
+
+    private void update(Manufacturer manufacturer, UnaryOperator<ManufacturerSnapshot> change) {
+        CatalogSnapshot snapshot = latest();
+        ManufacturerSnapshot old = snapshot.getManufacturer(manufacturer.getName());
+        if (old != null) {
+            ManufacturerSnapshot changed = change.apply(old);
+            publish(snapshot.manufacturerMap().plus(manufacturer.getName(), changed),
+                    snapshot.manufacturerSequence().plus(old.ordinal(), changed), snapshot.nextOrdinal());
+        }
+    }
+
+    private void publish(PersistentMap<String, ManufacturerSnapshot> manufacturers,
+                         PersistentSequence<ManufacturerSnapshot> ordered, long nextOrdinal) {
+        CatalogSnapshot next = new CatalogSnapshot(current.getVersion() + 1, manufacturers, ordered, nextOrdinal);
+        if (inBatch) {
+            pending = next;
+        } else {
+            current = next;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.services;
+
+/**
+ * A change to the catalog, as delivered by a {@link ChangeFeed}. Events are immutable; souvenirs are carried
+ * as {@link SouvenirSnapshot}s of their state right after the change.
+ * <p>
+ * Every event has a sequence number assigned by the feed: they start at 1 and increase by one per event,
+ * so a consumer can tell whether it has missed any.
+ */
+public sealed interface ChangeEvent {
+
+    /**
+     * Gets the sequence number of the event.
+     *
+     * @return The sequence number.
+     */
+    long sequence();
+
+    /**
+     * The field of a souvenir changed by a {@link SouvenirUpdated} event.
+     */
+    enum SouvenirField {
+        NAME, MANUFACTURER_DETAILS, RELEASE_DATE, PRICE
+    }
+
+    /**
+     * The whole catalog was replaced, e.g. by a save; consumers rebuild their views from
+     * {@link SouvenirsService#snapshot()}.
+     */
+    record CatalogReplaced(long sequence, int manufacturers) implements ChangeEvent {
+    }
+
+    record ManufacturerAdded(long sequence, String manufacturerName, String country) implements ChangeEvent {
+    }
+
+    record ManufacturerRenamed(long sequence, String oldName, String newName) implements ChangeEvent {
+    }
+
+    record ManufacturerCountryChanged(long sequence, String manufacturerName, String oldCountry, String newCountry)
+            implements ChangeEvent {
+    }
+
+    /**
+     * A manufacturer was removed together with all of its souvenirs.
+     */
+    record ManufacturerRemoved(long sequence, String manufacturerName) implements ChangeEvent {
+    }
+
+    record SouvenirAdded(long sequence, String manufacturerName, SouvenirSnapshot souvenir) implements ChangeEvent {
+    }
+
+    /**
+     * One field of a souvenir changed; {@code souvenirName} is the name before the change.
+     */
+    record SouvenirUpdated(long sequence, String manufacturerName, String souvenirName, SouvenirField field,
+                           SouvenirSnapshot souvenir) implements ChangeEvent {
+    }
+
+    record SouvenirRemoved(long sequence, String manufacturerName, String souvenirName) implements ChangeEvent {
+    }
+}
@@ -0,0 +1,335 @@
+package org.example.services;
+
+import org.example.entities.Manufacturer;
+import org.example.entities.Money;
+import org.example.entities.Souvenir;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * Turns the catalog changes of a {@link SouvenirsService} into {@link ChangeEvent}s and hands them to
+ * subscribers, so downstream caches can follow the catalog incrementally instead of reloading it.
+ * <p>
+ * Every subscription has a bounded queue. Events are queued under the service's write lock, in the order
+ * the changes were made; what happens when a queue is full depends on the subscription's {@link Overflow}
+ * policy. Without subscribers the feed does no work.
+ */
+public class ChangeFeed implements CatalogListener {
+
+    /**
+     * What to do with an event for a subscriber whose queue is full.
+     */
+    public enum Overflow {
+        /**
+         * Wait up to {@link #BLOCK_TIMEOUT_MILLIS} for the subscriber to make room, then drop it as with
+         * {@link #DROP}. The wait holds the service's write lock, so it stalls every reader and writer; it
+         * suits consumers that keep up on average and only fall behind in bursts. A consumer that reads the
+         * service while draining its queue can't make room during the wait, and is dropped once it passes.
+         */
+        BLOCK,
+        /**
+         * Drop the subscriber: its subscription ends after the events already queued, and it has to resync
+         * from a {@link SouvenirsService#snapshot()}.
+         */
+        DROP
+    }
+
+    /**
+     * How long a {@link Overflow#BLOCK} subscriber may hold up the service before it is dropped.
+     */
+    public static final long BLOCK_TIMEOUT_MILLIS = 100;
+
+    private static final AtomicInteger DISPATCHER_NUMBER = new AtomicInteger();
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private long sequence;
+
+    /**
+     * Subscribes with a queue that the caller drains with {@link Subscription#take()} or
+     * {@link Subscription#poll(long, TimeUnit)}.
+     *
+     * @param capacity The number of events that may wait in the queue.
+     * @param overflow What to do when the queue is full.
+     * @return The subscription.
+     */
+    public Subscription subscribe(int capacity, Overflow overflow) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        Subscription subscription = new Subscription(capacity, overflow);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Subscribes a listener, which is called with every event on a dedicated thread, in order.
+     *
+     * @param listener The listener.
+     * @param capacity The number of events that may wait for the listener.
+     * @param overflow What to do when the listener falls that far behind.
+     * @return The subscription; close it to stop the listener.
+     */
+    public Subscription subscribe(Consumer<ChangeEvent> listener, int capacity, Overflow overflow) {
+        Subscription subscription = subscribe(capacity, overflow);
+        Thread dispatcher = new Thread(() -> {
+            try {
+                ChangeEvent event;
+                while ((event = subscription.take()) != null) {
+                    try {
+                        listener.accept(event);
+                    } catch (RuntimeException e) {
+                        System.out.println("Change listener failed on " + event + ": " + e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                subscription.close();
+            }
+        }, "souvenir-change-feed-" + DISPATCHER_NUMBER.incrementAndGet());
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        return subscription;
+    }
+
+    /**
+     * Gets the number of active subscriptions.
+     *
+     * @return The number of subscriptions.
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    @Override
+    public void catalogLoaded(List<Manufacturer> manufacturers) {
+        publish(s -> new ChangeEvent.CatalogReplaced(s, manufacturers.size()));
+    }
+
+    @Override
+    public void manufacturerAdded(Manufacturer manufacturer) {
+        publish(s -> new ChangeEvent.ManufacturerAdded(s, manufacturer.getName(), manufacturer.getCountry()));
+    }
+
+    @Override
+    public void manufacturerRemoved(Manufacturer manufacturer) {
+        publish(s -> new ChangeEvent.ManufacturerRemoved(s, manufacturer.getName()));
+    }
+
+    @Override
+    public void manufacturerRenamed(Manufacturer manufacturer, String oldName) {
+        publish(s -> new ChangeEvent.ManufacturerRenamed(s, oldName, manufacturer.getName()));
+    }
+
+    @Override
+    public void manufacturerCountryChanged(Manufacturer manufacturer, String oldCountry) {
+        publish(s -> new ChangeEvent.ManufacturerCountryChanged(s, manufacturer.getName(), oldCountry, manufacturer.getCountry()));
+    }
+
+    @Override
+    public void souvenirAdded(Manufacturer manufacturer, Souvenir souvenir) {
+        publish(s -> new ChangeEvent.SouvenirAdded(s, manufacturer.getName(), SouvenirSnapshot.of(souvenir)));
+    }
+
+    @Override
+    public void souvenirRemoved(Manufacturer manufacturer, Souvenir souvenir) {
+        publish(s -> new ChangeEvent.SouvenirRemoved(s, manufacturer.getName(), souvenir.getName()));
+    }
+
+    @Override
+    public void souvenirRenamed(Manufacturer manufacturer, Souvenir souvenir, String oldName) {
+        souvenirUpdated(manufacturer, oldName, ChangeEvent.SouvenirField.NAME, souvenir);
+    }
+
+    @Override
+    public void souvenirPriceChanged(Manufacturer manufacturer, Souvenir souvenir, Money oldPrice) {
+        souvenirUpdated(manufacturer, souvenir.getName(), ChangeEvent.SouvenirField.PRICE, souvenir);
+    }
+
+    @Override
+    public void souvenirReleaseDateChanged(Manufacturer manufacturer, Souvenir souvenir, LocalDateTime oldReleaseDate) {
+        souvenirUpdated(manufacturer, souvenir.getName(), ChangeEvent.SouvenirField.RELEASE_DATE, souvenir);
+    }
+
+    @Override
+    public void souvenirDetailsChanged(Manufacturer manufacturer, Souvenir souvenir) {
+        souvenirUpdated(manufacturer, souvenir.getName(), ChangeEvent.SouvenirField.MANUFACTURER_DETAILS, souvenir);
+    }
+
+    private void souvenirUpdated(Manufacturer manufacturer, String souvenirName, ChangeEvent.SouvenirField field,
+                                 Souvenir souvenir) {
+        publish(s -> new ChangeEvent.SouvenirUpdated(s, manufacturer.getName(), souvenirName, field, SouvenirSnapshot.of(souvenir)));
+    }
+
+    /**
+     * Numbers and queues an event for every subscriber. Called under the service's write lock.
+     */
+    private void publish(LongFunction<ChangeEvent> event) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        ChangeEvent next = event.apply(++sequence);
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.offer(next)) {
+                subscriptions.remove(subscription);
+            }
+        }
+    }
+
+    /**
+     * A subscriber's queue of events.
+     */
+    public class Subscription implements AutoCloseable {
+
+        private final int capacity;
+        private final Overflow overflow;
+        private final ArrayDeque<ChangeEvent> queue = new ArrayDeque<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+        private boolean closed;
+        private boolean dropped;
+
+        private Subscription(int capacity, Overflow overflow) {
+            this.capacity = capacity;
+            this.overflow = overflow;
+        }
+
+        /**
+         * Takes the next event, waiting for one if necessary.
+         *
+         * @return The event, or null once the subscription is closed or dropped and no events remain.
+         * @throws InterruptedException If the waiting thread is interrupted.
+         */
+        public ChangeEvent take() throws InterruptedException {
+            lock.lockInterruptibly();
+            try {
+                while (queue.isEmpty() && !closed) {
+                    notEmpty.await();
+                }
+                return next();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Takes the next event, waiting up to a timeout for one.
+         *
+         * @param timeout How long to wait.
+         * @param unit    The unit of the timeout.
+         * @return The event, or null if none arrived in time or the subscription has ended.
+         * @throws InterruptedException If the waiting thread is interrupted.
+         */
+        public ChangeEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+            long nanos = unit.toNanos(timeout);
+            lock.lockInterruptibly();
+            try {
+                while (queue.isEmpty() && !closed) {
+                    if (nanos <= 0) {
+                        return null;
+                    }
+                    nanos = notEmpty.awaitNanos(nanos);
+                }
+                return next();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Checks whether the subscription was dropped because the subscriber fell behind.
+         *
+         * @return true if dropped.
+         */
+        public boolean isDropped() {
+            lock.lock();
+            try {
+                return dropped;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Gets the number of events waiting in the queue.
+         *
+         * @return The queue length.
+         */
+        public int getQueuedEvents() {
+            lock.lock();
+            try {
+                return queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Ends the subscription. Events already queued can still be taken.
+         */
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+            lock.lock();
+            try {
+                closed = true;
+                notEmpty.signalAll();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private ChangeEvent next() {
+            ChangeEvent event = queue.poll();
+            if (event != null) {
+                notFull.signal();
+            }
+            return event;
+        }
+
+        /**
+         * Queues an event, applying the overflow policy.
+         *
+         * @return false if the subscription has ended and should no longer receive events.
+         */
+        private boolean offer(ChangeEvent event) {
+            long nanos = overflow == Overflow.BLOCK ? TimeUnit.MILLISECONDS.toNanos(BLOCK_TIMEOUT_MILLIS) : 0;
+            lock.lock();
+            try {
+                while (queue.size() >= capacity && !closed) {
+                    if (nanos <= 0) {
+                        dropped = true;
+                        closed = true;
+                        notEmpty.signalAll();
+                        System.out.println("Dropping change feed subscriber: it fell " + capacity + " events behind");
+                        return false;
+                    }
+                    try {
+                        nanos = notFull.awaitNanos(nanos);
+                    } catch (InterruptedException e) {
+                        // Don't lose the writer's interrupt, but don't let it wait any longer either.
+                        Thread.currentThread().interrupt();
+                        nanos = 0;
+                    }
+                }
+                if (closed) {
+                    return false;
+                }
+                queue.add(event);
+                notEmpty.signal();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
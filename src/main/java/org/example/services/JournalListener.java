@@ -0,0 +1,29 @@
+package org.example.services;
+
+import org.example.entities.Manufacturer;
+import org.example.storage.Journal;
+
+import java.util.List;
+
+/**
+ * Receives the stream of journaled mutations of a {@link SouvenirsService}, e.g. to ship it to replicas.
+ * Callbacks run under the service's write lock, so they see the catalog exactly as of the given sequence
+ * number and must not block.
+ */
+interface JournalListener {
+
+    /**
+     * Called when the listener is registered and whenever the whole catalog is replaced.
+     *
+     * @param manufacturers The catalog.
+     * @param sequence      The sequence number of the newest mutation the catalog contains.
+     */
+    void catalogLoaded(List<Manufacturer> manufacturers, long sequence);
+
+    /**
+     * Called after a mutation has been applied to the catalog and appended to the journal.
+     *
+     * @param entry The mutation and its sequence number.
+     */
+    void mutationRecorded(Journal.Entry entry);
+}
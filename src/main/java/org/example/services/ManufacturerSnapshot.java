@@ -0,0 +1,130 @@
+package org.example.services;
+
+import org.example.entities.Manufacturer;
+import org.example.entities.Souvenir;
+
+import java.util.List;
+
+/**
+ * Immutable copy of a {@link Manufacturer} and its souvenirs as they were in one {@link CatalogSnapshot}.
+ * Souvenirs are held in a persistent map by name and a persistent sequence in the order they were added,
+ * so a change to one souvenir copies O(log n) nodes of this manufacturer; every other manufacturer is
+ * shared with the previous snapshot.
+ */
+public final class ManufacturerSnapshot {
+
+    /**
+     * A souvenir with its position among the souvenirs of the manufacturer.
+     */
+    private record Placed(long ordinal, SouvenirSnapshot souvenir) {
+    }
+
+    private final long ordinal;
+    private final String name;
+    private final String country;
+    private final PersistentMap<String, Placed> souvenirsByName;
+    private final PersistentSequence<SouvenirSnapshot> souvenirs;
+    private final long nextSouvenirOrdinal;
+
+    private ManufacturerSnapshot(long ordinal, String name, String country, PersistentMap<String, Placed> souvenirsByName,
+                                 PersistentSequence<SouvenirSnapshot> souvenirs, long nextSouvenirOrdinal) {
+        this.ordinal = ordinal;
+        this.name = name;
+        this.country = country;
+        this.souvenirsByName = souvenirsByName;
+        this.souvenirs = souvenirs;
+        this.nextSouvenirOrdinal = nextSouvenirOrdinal;
+    }
+
+    static ManufacturerSnapshot of(Manufacturer manufacturer, long ordinal) {
+        ManufacturerSnapshot snapshot = new ManufacturerSnapshot(ordinal, manufacturer.getName(), manufacturer.getCountry(),
+                PersistentMap.empty(), PersistentSequence.empty(), 0);
+        for (Souvenir souvenir : manufacturer.getSouvenirs()) {
+            snapshot = snapshot.withSouvenirAdded(souvenir);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Position of the manufacturer in the catalog; snapshots list manufacturers in this order.
+     */
+    long ordinal() {
+        return ordinal;
+    }
+
+    ManufacturerSnapshot withDetails(Manufacturer manufacturer) {
+        return new ManufacturerSnapshot(ordinal, manufacturer.getName(), manufacturer.getCountry(), souvenirsByName,
+                souvenirs, nextSouvenirOrdinal);
+    }
+
+    ManufacturerSnapshot withSouvenirAdded(Souvenir souvenir) {
+        SouvenirSnapshot added = SouvenirSnapshot.of(souvenir);
+        return new ManufacturerSnapshot(ordinal, name, country,
+                souvenirsByName.plus(souvenir.getName(), new Placed(nextSouvenirOrdinal, added)),
+                souvenirs.plus(nextSouvenirOrdinal, added), nextSouvenirOrdinal + 1);
+    }
+
+    /**
+     * @param souvenirName The name the souvenir had in this snapshot.
+     * @param souvenir     The souvenir as it is now, or null if it was removed.
+     */
+    ManufacturerSnapshot withSouvenirReplaced(String souvenirName, Souvenir souvenir) {
+        Placed old = souvenirsByName.get(souvenirName);
+        if (old == null) {
+            return this;
+        }
+        if (souvenir == null) {
+            return new ManufacturerSnapshot(ordinal, name, country, souvenirsByName.minus(souvenirName),
+                    souvenirs.minus(old.ordinal()), nextSouvenirOrdinal);
+        }
+        SouvenirSnapshot replaced = SouvenirSnapshot.of(souvenir);
+        PersistentMap<String, Placed> byName = souvenirName.equals(souvenir.getName()) ? souvenirsByName
+                : souvenirsByName.minus(souvenirName);
+        return new ManufacturerSnapshot(ordinal, name, country,
+                byName.plus(souvenir.getName(), new Placed(old.ordinal(), replaced)),
+                souvenirs.plus(old.ordinal(), replaced), nextSouvenirOrdinal);
+    }
+
+    /**
+     * Gets the name of the manufacturer.
+     *
+     * @return The name of the manufacturer.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the country of the manufacturer.
+     *
+     * @return The country of the manufacturer.
+     */
+    public String getCountry() {
+        return country;
+    }
+
+    /**
+     * Gets the souvenirs of the manufacturer, in the order they were added.
+     *
+     * @return An unmodifiable list of souvenirs; positional access costs O(log n).
+     */
+    public List<SouvenirSnapshot> getSouvenirs() {
+        return souvenirs.asList();
+    }
+
+    /**
+     * Gets a souvenir of the manufacturer by name.
+     *
+     * @param souvenirName The name of the souvenir.
+     * @return The souvenir, or null if the manufacturer has no souvenir with that name.
+     */
+    public SouvenirSnapshot getSouvenir(String souvenirName) {
+        Placed placed = souvenirsByName.get(souvenirName);
+        return placed == null ? null : placed.souvenir();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Manufacturer(\nname = %s, \ncountry = %s)", name, country);
+    }
+}
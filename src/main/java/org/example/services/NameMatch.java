@@ -0,0 +1,85 @@
+package org.example.services;
+
+import org.example.entities.Manufacturer;
+import org.example.entities.Souvenir;
+
+/**
+ * A manufacturer or souvenir whose name matched a search, as returned by
+ * {@link SouvenirsService#searchNames(String, int)}.
+ */
+public final class NameMatch {
+
+    /**
+     * How the searched text matched the name; earlier values rank higher.
+     */
+    public enum MatchType {
+        EXACT, PREFIX, WORD_PREFIX, SUBSTRING
+    }
+
+    private final Manufacturer manufacturer;
+    private final Souvenir souvenir;
+    private final MatchType matchType;
+
+    NameMatch(Manufacturer manufacturer, Souvenir souvenir, MatchType matchType) {
+        this.manufacturer = manufacturer;
+        this.souvenir = souvenir;
+        this.matchType = matchType;
+    }
+
+    /**
+     * Gets the matched manufacturer, or the manufacturer of the matched souvenir.
+     *
+     * @return The manufacturer.
+     */
+    public Manufacturer getManufacturer() {
+        return manufacturer;
+    }
+
+    /**
+     * Gets the matched souvenir.
+     *
+     * @return The souvenir, or null if a manufacturer name matched.
+     */
+    public Souvenir getSouvenir() {
+        return souvenir;
+    }
+
+    /**
+     * Checks whether a manufacturer name matched.
+     *
+     * @return true for a manufacturer match, false for a souvenir match.
+     */
+    public boolean isManufacturer() {
+        return souvenir == null;
+    }
+
+    /**
+     * Gets the matched name.
+     *
+     * @return The manufacturer or souvenir name.
+     */
+    public String getName() {
+        return souvenir == null ? manufacturer.getName() : souvenir.getName();
+    }
+
+    /**
+     * Gets how the searched text matched the name.
+     *
+     * @return The match type.
+     */
+    public MatchType getMatchType() {
+        return matchType;
+    }
+
+    /**
+     * Returns a string representation of the match.
+     *
+     * @return A string containing the match type and the matched name.
+     */
+    @Override
+    public String toString() {
+        return isManufacturer()
+                ? String.format("%s: Manufacturer '%s'", matchType, getName())
+                : String.format("%s: Souvenir '%s' by '%s'", matchType, getName(), manufacturer.getName());
+    }
+}
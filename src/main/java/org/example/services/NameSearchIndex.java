@@ -0,0 +1,294 @@
+package org.example.services;
+
+import org.example.entities.Manufacturer;
+import org.example.entities.Souvenir;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Case-insensitive prefix and substring search over manufacturer and souvenir names.
+ * <p>
+ * Prefixes are answered by a trie of the full names, walked breadth-first so shorter names come out
+ * first. Substrings are answered by trigram postings: the candidates are the names containing every
+ * trigram of the searched text, which are then verified. Names are padded with boundary markers
+ * before being split into trigrams, so texts of one or two characters are found as well.
+ */
+class NameSearchIndex implements CatalogListener {
+
+    private static final char START = '\u0002';
+    private static final char END = '\u0003';
+
+    /**
+     * A searchable name. Held by identity, since the underlying entities are mutable.
+     */
+    private static final class Entry {
+        final Manufacturer manufacturer;
+        final Souvenir souvenir;
+        String key;
+
+        Entry(Manufacturer manufacturer, Souvenir souvenir) {
+            this.manufacturer = manufacturer;
+            this.souvenir = souvenir;
+        }
+
+        String name() {
+            return souvenir == null ? manufacturer.getName() : souvenir.getName();
+        }
+    }
+
+    private static final class TrieNode {
+        final Map<Character, TrieNode> children = new HashMap<>(4);
+        final Set<Entry> entries = Collections.newSetFromMap(new IdentityHashMap<>(2));
+
+        boolean isEmpty() {
+            return children.isEmpty() && entries.isEmpty();
+        }
+    }
+
+    private final TrieNode root = new TrieNode();
+    private final Map<String, Set<Entry>> trigrams = new HashMap<>();
+    private final Map<Manufacturer, Entry> manufacturerEntries = new IdentityHashMap<>();
+    private final Map<Souvenir, Entry> souvenirEntries = new IdentityHashMap<>();
+
+    static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Finds names matching the text, ranked by match type, then by name length, then alphabetically.
+     *
+     * @param text   The searched text.
+     * @param limit  The maximum number of matches.
+     * @param filter Restricts the kind of names returned.
+     * @return Up to limit matches, best first.
+     */
+    List<NameMatch> search(String text, int limit, Predicate<NameMatch> filter) {
+        List<NameMatch> result = new ArrayList<>();
+        String query = normalize(text.trim());
+        if (query.isEmpty() || limit <= 0) {
+            return result;
+        }
+        Set<Entry> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        collectPrefixMatches(query, limit, filter, seen, result);
+        if (result.size() < limit) {
+            collectSubstringMatches(query, limit - result.size(), filter, seen, result);
+        }
+        return result;
+    }
+
+    private void collectPrefixMatches(String query, int limit, Predicate<NameMatch> filter, Set<Entry> seen, List<NameMatch> result) {
+        TrieNode node = root;
+        for (int i = 0; i < query.length() && node != null; i++) {
+            node = node.children.get(query.charAt(i));
+        }
+        if (node == null) {
+            return;
+        }
+        // Breadth-first: every level is one character longer, so shorter names are produced first.
+        ArrayDeque<TrieNode> level = new ArrayDeque<>();
+        level.add(node);
+        boolean exact = true;
+        while (!level.isEmpty() && result.size() < limit) {
+            ArrayDeque<TrieNode> next = new ArrayDeque<>();
+            List<Entry> sameLength = new ArrayList<>();
+            for (TrieNode current : level) {
+                sameLength.addAll(current.entries);
+                next.addAll(current.children.values());
+            }
+            sameLength.sort(Comparator.comparing(e -> e.key));
+            for (Entry entry : sameLength) {
+                NameMatch match = toMatch(entry, exact ? NameMatch.MatchType.EXACT : NameMatch.MatchType.PREFIX);
+                if (filter.test(match) && seen.add(entry)) {
+                    result.add(match);
+                    if (result.size() == limit) {
+                        return;
+                    }
+                }
+            }
+            exact = false;
+            level = next;
+        }
+    }
+
+    private void collectSubstringMatches(String query, int limit, Predicate<NameMatch> filter, Set<Entry> seen, List<NameMatch> result) {
+        Comparator<NameMatch> rank = Comparator.comparing(NameMatch::getMatchType)
+                .thenComparingInt(m -> m.getName().length())
+                .thenComparing(m -> normalize(m.getName()));
+        PriorityQueue<NameMatch> best = new PriorityQueue<>(rank.reversed());
+        for (Entry entry : candidates(query)) {
+            if (seen.contains(entry)) {
+                continue;
+            }
+            int at = entry.key.indexOf(query);
+            if (at < 0) {
+                continue;
+            }
+            boolean wordStart = at == 0 || !Character.isLetterOrDigit(entry.key.charAt(at - 1));
+            NameMatch match = toMatch(entry, wordStart ? NameMatch.MatchType.WORD_PREFIX : NameMatch.MatchType.SUBSTRING);
+            if (!filter.test(match)) {
+                continue;
+            }
+            best.add(match);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<NameMatch> ranked = new ArrayList<>(best);
+        ranked.sort(rank);
+        result.addAll(ranked);
+    }
+
+    /**
+     * Gets the entries that may contain the query: the intersection of the postings of its trigrams,
+     * or, for queries shorter than a trigram, the union of the postings of every trigram containing it.
+     */
+    private Set<Entry> candidates(String query) {
+        if (query.length() >= 3) {
+            List<Set<Entry>> postings = new ArrayList<>();
+            for (int i = 0; i + 3 <= query.length(); i++) {
+                Set<Entry> posting = trigrams.get(query.substring(i, i + 3));
+                if (posting == null) {
+                    return Set.of();
+                }
+                postings.add(posting);
+            }
+            postings.sort(Comparator.comparingInt(Set::size));
+            Set<Entry> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+            candidates.addAll(postings.get(0));
+            for (int i = 1; i < postings.size() && !candidates.isEmpty(); i++) {
+                candidates.retainAll(postings.get(i));
+            }
+            return candidates;
+        }
+        Set<Entry> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+        trigrams.forEach((trigram, posting) -> {
+            if (trigram.contains(query)) {
+                candidates.addAll(posting);
+            }
+        });
+        return candidates;
+    }
+
+    private static NameMatch toMatch(Entry entry, NameMatch.MatchType matchType) {
+        return new NameMatch(entry.manufacturer, entry.souvenir, matchType);
+    }
+
+    private static Set<String> trigramsOf(String key) {
+        String padded = START + key + END;
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    private void index(Entry entry) {
+        entry.key = normalize(entry.name());
+        TrieNode node = root;
+        for (int i = 0; i < entry.key.length(); i++) {
+            node = node.children.computeIfAbsent(entry.key.charAt(i), c -> new TrieNode());
+        }
+        node.entries.add(entry);
+        for (String trigram : trigramsOf(entry.key)) {
+            trigrams.computeIfAbsent(trigram, t -> Collections.newSetFromMap(new IdentityHashMap<>())).add(entry);
+        }
+    }
+
+    private void unindex(Entry entry) {
+        removeFromTrie(root, entry, 0);
+        for (String trigram : trigramsOf(entry.key)) {
+            Set<Entry> posting = trigrams.get(trigram);
+            if (posting != null) {
+                posting.remove(entry);
+                if (posting.isEmpty()) {
+                    trigrams.remove(trigram);
+                }
+            }
+        }
+    }
+
+    private boolean removeFromTrie(TrieNode node, Entry entry, int depth) {
+        if (depth == entry.key.length()) {
+            node.entries.remove(entry);
+        } else {
+            char c = entry.key.charAt(depth);
+            TrieNode child = node.children.get(c);
+            if (child != null && removeFromTrie(child, entry, depth + 1)) {
+                node.children.remove(c);
+            }
+        }
+        return node.isEmpty();
+    }
+
+    @Override
+    public void catalogLoaded(List<Manufacturer> manufacturers) {
+        root.children.clear();
+        root.entries.clear();
+        trigrams.clear();
+        manufacturerEntries.clear();
+        souvenirEntries.clear();
+        manufacturers.forEach(this::manufacturerAdded);
+    }
+
+    @Override
+    public void manufacturerAdded(Manufacturer manufacturer) {
+        Entry entry = new Entry(manufacturer, null);
+        manufacturerEntries.put(manufacturer, entry);
+        index(entry);
+        manufacturer.getSouvenirs().forEach(s -> souvenirAdded(manufacturer, s));
+    }
+
+    @Override
+    public void manufacturerRemoved(Manufacturer manufacturer) {
+        Entry entry = manufacturerEntries.remove(manufacturer);
+        if (entry != null) {
+            unindex(entry);
+        }
+        manufacturer.getSouvenirs().forEach(s -> souvenirRemoved(manufacturer, s));
+    }
+
+    @Override
+    public void manufacturerRenamed(Manufacturer manufacturer, String oldName) {
+        Entry entry = manufacturerEntries.get(manufacturer);
+        if (entry != null) {
+            unindex(entry);
+            index(entry);
+        }
+    }
+
+    @Override
+    public void souvenirAdded(Manufacturer manufacturer, Souvenir souvenir) {
+        Entry entry = new Entry(manufacturer, souvenir);
+        souvenirEntries.put(souvenir, entry);
+        index(entry);
+    }
+
+    @Override
+    public void souvenirRemoved(Manufacturer manufacturer, Souvenir souvenir) {
+        Entry entry = souvenirEntries.remove(souvenir);
+        if (entry != null) {
+            unindex(entry);
+        }
+    }
+
+    @Override
+    public void souvenirRenamed(Manufacturer manufacturer, Souvenir souvenir, String oldName) {
+        Entry entry = souvenirEntries.get(souvenir);
+        if (entry != null) {
+            unindex(entry);
+            index(entry);
+        }
+    }
+}
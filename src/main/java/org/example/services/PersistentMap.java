@@ -0,0 +1,285 @@
+package org.example.services;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash array mapped trie. {@link #plus} and {@link #minus} return a new map that shares every
+ * untouched node with the old one, so an update copies only the O(log32 n) nodes on the path to the key
+ * and any number of readers can keep using older versions without synchronization.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+final class PersistentMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(K key) {
+        return (V) root.get(key, hash(key), 0);
+    }
+
+    PersistentMap<K, V> plus(K key, V value) {
+        boolean[] added = new boolean[1];
+        Node newRoot = root.plus(key, value, hash(key), 0, added);
+        return newRoot == root ? this : new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    PersistentMap<K, V> minus(K key) {
+        Node newRoot = root.minus(key, hash(key), 0);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentMap<>(newRoot == null ? BitmapNode.EMPTY : newRoot, size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(BiConsumer<? super K, ? super V> action) {
+        root.forEach((BiConsumer<Object, Object>) action);
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private interface Node {
+
+        Object get(Object key, int hash, int shift);
+
+        Node plus(Object key, Object value, int hash, int shift, boolean[] added);
+
+        /**
+         * @return This node if the key is absent, null if the node became empty, otherwise the updated node.
+         */
+        Node minus(Object key, int hash, int shift);
+
+        void forEach(BiConsumer<Object, Object> action);
+    }
+
+    /**
+     * Up to 32 slots selected by 5 bits of the hash. {@code bitmap} marks the occupied slots; each one holds
+     * either a key and its value, or (with a null key) a child node.
+     */
+    private static final class BitmapNode implements Node {
+
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] slots;
+
+        BitmapNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        public Object get(Object key, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            int i = 2 * index(bit);
+            Object k = slots[i];
+            if (k == null) {
+                return ((Node) slots[i + 1]).get(key, hash, shift + BITS);
+            }
+            return k.equals(key) ? slots[i + 1] : null;
+        }
+
+        @Override
+        public Node plus(Object key, Object value, int hash, int shift, boolean[] added) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int i = 2 * index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] newSlots = new Object[slots.length + 2];
+                System.arraycopy(slots, 0, newSlots, 0, i);
+                newSlots[i] = key;
+                newSlots[i + 1] = value;
+                System.arraycopy(slots, i, newSlots, i + 2, slots.length - i);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newSlots);
+            }
+            Object k = slots[i];
+            Object v = slots[i + 1];
+            if (k == null) {
+                Node child = ((Node) v).plus(key, value, hash, shift + BITS, added);
+                return child == v ? this : with(i + 1, null, child);
+            }
+            if (k.equals(key)) {
+                return v == value ? this : with(i + 1, k, value);
+            }
+            added[0] = true;
+            Node child = pair(k, v, hash(k), key, value, hash, shift + BITS);
+            return with(i + 1, null, child);
+        }
+
+        private BitmapNode with(int valueIndex, Object key, Object value) {
+            Object[] newSlots = slots.clone();
+            newSlots[valueIndex - 1] = key;
+            newSlots[valueIndex] = value;
+            return new BitmapNode(bitmap, newSlots);
+        }
+
+        private static Node pair(Object key1, Object value1, int hash1, Object key2, Object value2, int hash2, int shift) {
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new Object[]{key1, value1, key2, value2});
+            }
+            int index1 = (hash1 >>> shift) & MASK;
+            int index2 = (hash2 >>> shift) & MASK;
+            int bit1 = 1 << index1;
+            int bit2 = 1 << index2;
+            if (index1 == index2) {
+                return new BitmapNode(bit1, new Object[]{null, pair(key1, value1, hash1, key2, value2, hash2, shift + BITS)});
+            }
+            return index1 < index2
+                    ? new BitmapNode(bit1 | bit2, new Object[]{key1, value1, key2, value2})
+                    : new BitmapNode(bit1 | bit2, new Object[]{key2, value2, key1, value1});
+        }
+
+        @Override
+        public Node minus(Object key, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int i = 2 * index(bit);
+            Object k = slots[i];
+            if (k == null) {
+                Node child = (Node) slots[i + 1];
+                Node newChild = child.minus(key, hash, shift + BITS);
+                if (newChild == child) {
+                    return this;
+                }
+                return newChild == null ? without(bit, i) : with(i + 1, null, newChild);
+            }
+            return k.equals(key) ? without(bit, i) : this;
+        }
+
+        private Node without(int bit, int i) {
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] newSlots = new Object[slots.length - 2];
+            System.arraycopy(slots, 0, newSlots, 0, i);
+            System.arraycopy(slots, i + 2, newSlots, i, slots.length - i - 2);
+            return new BitmapNode(bitmap & ~bit, newSlots);
+        }
+
+        @Override
+        public void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < slots.length; i += 2) {
+                if (slots[i] == null) {
+                    ((Node) slots[i + 1]).forEach(action);
+                } else {
+                    action.accept(slots[i], slots[i + 1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Keys whose full 32-bit hashes are equal, kept as a flat array of key/value pairs.
+     */
+    private static final class CollisionNode implements Node {
+
+        final int hash;
+        final Object[] pairs;
+
+        CollisionNode(int hash, Object[] pairs) {
+            this.hash = hash;
+            this.pairs = pairs;
+        }
+
+        private int find(Object key) {
+            for (int i = 0; i < pairs.length; i += 2) {
+                if (pairs[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public Object get(Object key, int hash, int shift) {
+            int i = find(key);
+            return i < 0 ? null : pairs[i + 1];
+        }
+
+        @Override
+        public Node plus(Object key, Object value, int hash, int shift, boolean[] added) {
+            if (hash != this.hash) {
+                // Push this node one level down next to the new key.
+                BitmapNode parent = new BitmapNode(1 << ((this.hash >>> shift) & MASK), new Object[]{null, this});
+                return parent.plus(key, value, hash, shift, added);
+            }
+            int i = find(key);
+            if (i >= 0) {
+                if (pairs[i + 1] == value) {
+                    return this;
+                }
+                Object[] newPairs = pairs.clone();
+                newPairs[i + 1] = value;
+                return new CollisionNode(hash, newPairs);
+            }
+            Object[] newPairs = Arrays.copyOf(pairs, pairs.length + 2);
+            newPairs[pairs.length] = key;
+            newPairs[pairs.length + 1] = value;
+            added[0] = true;
+            return new CollisionNode(hash, newPairs);
+        }
+
+        @Override
+        public Node minus(Object key, int hash, int shift) {
+            int i = find(key);
+            if (i < 0) {
+                return this;
+            }
+            if (pairs.length == 2) {
+                return null;
+            }
+            Object[] newPairs = new Object[pairs.length - 2];
+            System.arraycopy(pairs, 0, newPairs, 0, i);
+            System.arraycopy(pairs, i + 2, newPairs, i, pairs.length - i - 2);
+            return new CollisionNode(hash, newPairs);
+        }
+
+        @Override
+        public void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < pairs.length; i += 2) {
+                action.accept(pairs[i], pairs[i + 1]);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((k, v) -> sb.append(sb.length() > 1 ? ", " : "").append(k).append('=').append(v));
+        return sb.append('}').toString();
+    }
+}
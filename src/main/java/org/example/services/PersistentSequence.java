@@ -0,0 +1,230 @@
+package org.example.services;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Immutable sequence of values ordered by a {@code long} key, such as the ordinal that records insertion
+ * order. It is a treap whose priorities are derived from the keys, with every node counting the nodes below
+ * it: {@link #plus} and {@link #minus} copy only the O(log n) nodes on the path to the key and share the rest
+ * with the old version, and {@link #asList()} reads the i-th value in O(log n) without materializing a list.
+ *
+ * @param <V> The value type.
+ */
+final class PersistentSequence<V> {
+
+    private static final PersistentSequence<?> EMPTY = new PersistentSequence<>(null);
+
+    private final Node<V> root;
+
+    private PersistentSequence(Node<V> root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> PersistentSequence<V> empty() {
+        return (PersistentSequence<V>) EMPTY;
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * Adds a value under a key, or replaces the value already held under it.
+     */
+    PersistentSequence<V> plus(long key, V value) {
+        return new PersistentSequence<>(plus(root, key, priority(key), value));
+    }
+
+    PersistentSequence<V> minus(long key) {
+        Node<V> newRoot = minus(root, key);
+        return newRoot == root ? this : new PersistentSequence<>(newRoot);
+    }
+
+    /**
+     * Gets the value at a position, counting in key order.
+     */
+    V at(int index) {
+        Objects.checkIndex(index, size());
+        Node<V> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+    }
+
+    void forEach(Consumer<? super V> action) {
+        forEach(root, action);
+    }
+
+    /**
+     * Gets a read-only list view of the values in key order. Iteration walks the tree; positional access
+     * costs O(log n).
+     */
+    List<V> asList() {
+        return new AbstractList<>() {
+            @Override
+            public V get(int index) {
+                return at(index);
+            }
+
+            @Override
+            public int size() {
+                return PersistentSequence.this.size();
+            }
+
+            @Override
+            public Iterator<V> iterator() {
+                return new InOrder<>(root);
+            }
+
+            @Override
+            public void forEach(Consumer<? super V> action) {
+                PersistentSequence.this.forEach(action);
+            }
+        };
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Scrambles the key into a priority, so that keys handed out in increasing order still give a balanced
+     * tree.
+     */
+    private static int priority(long key) {
+        long z = key;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return (int) ((z ^ (z >>> 31)) >>> 32);
+    }
+
+    private static <V> Node<V> plus(Node<V> node, long key, int priority, V value) {
+        if (node == null) {
+            return new Node<>(key, priority, value, null, null);
+        }
+        if (key == node.key) {
+            return new Node<>(key, priority, value, node.left, node.right);
+        }
+        if (key < node.key) {
+            Node<V> left = plus(node.left, key, priority, value);
+            if (left.priority > node.priority) {
+                return new Node<>(left.key, left.priority, left.value, left.left,
+                        new Node<>(node.key, node.priority, node.value, left.right, node.right));
+            }
+            return new Node<>(node.key, node.priority, node.value, left, node.right);
+        }
+        Node<V> right = plus(node.right, key, priority, value);
+        if (right.priority > node.priority) {
+            return new Node<>(right.key, right.priority, right.value,
+                    new Node<>(node.key, node.priority, node.value, node.left, right.left), right.right);
+        }
+        return new Node<>(node.key, node.priority, node.value, node.left, right);
+    }
+
+    private static <V> Node<V> minus(Node<V> node, long key) {
+        if (node == null) {
+            return null;
+        }
+        if (key < node.key) {
+            Node<V> left = minus(node.left, key);
+            return left == node.left ? node : new Node<>(node.key, node.priority, node.value, left, node.right);
+        }
+        if (key > node.key) {
+            Node<V> right = minus(node.right, key);
+            return right == node.right ? node : new Node<>(node.key, node.priority, node.value, node.left, right);
+        }
+        return merge(node.left, node.right);
+    }
+
+    /**
+     * Joins two trees whose keys don't overlap, every key of the left one being smaller.
+     */
+    private static <V> Node<V> merge(Node<V> left, Node<V> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            return new Node<>(left.key, left.priority, left.value, left.left, merge(left.right, right));
+        }
+        return new Node<>(right.key, right.priority, right.value, merge(left, right.left), right.right);
+    }
+
+    private static <V> void forEach(Node<V> node, Consumer<? super V> action) {
+        while (node != null) {
+            forEach(node.left, action);
+            action.accept(node.value);
+            node = node.right;
+        }
+    }
+
+    private static final class Node<V> {
+        final long key;
+        final int priority;
+        final V value;
+        final Node<V> left;
+        final Node<V> right;
+        final int size;
+
+        Node(long key, int priority, V value, Node<V> left, Node<V> right) {
+            this.key = key;
+            this.priority = priority;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    private static final class InOrder<V> implements Iterator<V> {
+        private final Deque<Node<V>> path = new ArrayDeque<>();
+
+        InOrder(Node<V> root) {
+            descend(root);
+        }
+
+        private void descend(Node<V> node) {
+            for (; node != null; node = node.left) {
+                path.push(node);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !path.isEmpty();
+        }
+
+        @Override
+        public V next() {
+            if (path.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<V> node = path.pop();
+            descend(node.right);
+            return node.value;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PersistentSequence(size = " + size() + ")";
+    }
+}
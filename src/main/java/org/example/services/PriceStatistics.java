@@ -0,0 +1,207 @@
+package org.example.services;
+
+import org.example.entities.Money;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Aggregated prices of a group of souvenirs: how many there are, the cheapest and the most
+ * expensive price, the average price and the total value.
+ * <p>
+ * Prices are aggregated exactly, in minor units, and separately per currency: amounts in different
+ * currencies are never added up or compared. The price getters describe a group priced in a single
+ * currency; for a group with several, {@link #forCurrency(Currency)} gives the statistics of each one.
+ */
+public final class PriceStatistics {
+
+    /**
+     * Statistics of a group without souvenirs.
+     */
+    public static final PriceStatistics EMPTY = new PriceStatistics(0, null, 0, 0, 0, Map.of());
+
+    private final long count;
+    private final Currency currency;
+    private final long minMinorUnits;
+    private final long maxMinorUnits;
+    private final long totalMinorUnits;
+    private final Map<Currency, PriceStatistics> byCurrency;
+
+    /**
+     * Constructs the statistics of a group priced in a single currency.
+     */
+    PriceStatistics(long count, Currency currency, long minMinorUnits, long maxMinorUnits, long totalMinorUnits) {
+        this.count = count;
+        this.currency = currency;
+        this.minMinorUnits = minMinorUnits;
+        this.maxMinorUnits = maxMinorUnits;
+        this.totalMinorUnits = totalMinorUnits;
+        this.byCurrency = Map.of(currency, this);
+    }
+
+    private PriceStatistics(long count, Currency currency, long minMinorUnits, long maxMinorUnits, long totalMinorUnits,
+                            Map<Currency, PriceStatistics> byCurrency) {
+        this.count = count;
+        this.currency = currency;
+        this.minMinorUnits = minMinorUnits;
+        this.maxMinorUnits = maxMinorUnits;
+        this.totalMinorUnits = totalMinorUnits;
+        this.byCurrency = byCurrency;
+    }
+
+    /**
+     * Combines the statistics of the currencies a group is priced in.
+     *
+     * @param perCurrency Single-currency statistics, one per currency.
+     * @return The statistics of the whole group.
+     */
+    static PriceStatistics of(Collection<PriceStatistics> perCurrency) {
+        if (perCurrency.isEmpty()) {
+            return EMPTY;
+        }
+        if (perCurrency.size() == 1) {
+            return perCurrency.iterator().next();
+        }
+        Map<Currency, PriceStatistics> byCurrency = new LinkedHashMap<>();
+        long count = 0;
+        for (PriceStatistics statistics : perCurrency.stream()
+                .sorted(Comparator.comparing(s -> s.currency.getCurrencyCode())).toList()) {
+            byCurrency.put(statistics.currency, statistics);
+            count += statistics.count;
+        }
+        return new PriceStatistics(count, null, 0, 0, 0, Collections.unmodifiableMap(byCurrency));
+    }
+
+    /**
+     * Gets the number of souvenirs in the group, in all currencies.
+     *
+     * @return The number of souvenirs.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the currencies the group is priced in.
+     *
+     * @return The currencies, ordered by currency code; empty if the group is empty.
+     */
+    public Set<Currency> getCurrencies() {
+        return byCurrency.keySet();
+    }
+
+    /**
+     * Gets the statistics of the souvenirs priced in one currency.
+     *
+     * @param currency The currency.
+     * @return The statistics, empty if no souvenir of the group is priced in that currency.
+     */
+    public PriceStatistics forCurrency(Currency currency) {
+        return byCurrency.getOrDefault(currency, EMPTY);
+    }
+
+    /**
+     * Gets the lowest price in the group.
+     *
+     * @return The lowest price, or null if the group is empty.
+     * @throws IllegalStateException If the group is priced in several currencies.
+     */
+    public Money getMinPriceMoney() {
+        return count == 0 ? null : Money.ofMinor(minMinorUnits, singleCurrency());
+    }
+
+    /**
+     * Gets the highest price in the group.
+     *
+     * @return The highest price, or null if the group is empty.
+     * @throws IllegalStateException If the group is priced in several currencies.
+     */
+    public Money getMaxPriceMoney() {
+        return count == 0 ? null : Money.ofMinor(maxMinorUnits, singleCurrency());
+    }
+
+    /**
+     * Gets the exact sum of all prices in the group.
+     *
+     * @return The total value, or null if the group is empty.
+     * @throws IllegalStateException If the group is priced in several currencies.
+     */
+    public Money getTotalValueMoney() {
+        return count == 0 ? null : Money.ofMinor(totalMinorUnits, singleCurrency());
+    }
+
+    /**
+     * Gets the lowest price in the group.
+     *
+     * @return The lowest price, or 0 if the group is empty.
+     * @throws IllegalStateException If the group is priced in several currencies.
+     */
+    public double getMinPrice() {
+        return count == 0 ? 0 : getMinPriceMoney().toDouble();
+    }
+
+    /**
+     * Gets the highest price in the group.
+     *
+     * @return The highest price, or 0 if the group is empty.
+     * @throws IllegalStateException If the group is priced in several currencies.
+     */
+    public double getMaxPrice() {
+        return count == 0 ? 0 : getMaxPriceMoney().toDouble();
+    }
+
+    /**
+     * Gets the average price in the group.
+     *
+     * @return The average price, or 0 if the group is empty.
+     * @throws IllegalStateException If the group is priced in several currencies.
+     */
+    public double getAveragePrice() {
+        return count == 0 ? 0 : getTotalValueMoney().toBigDecimal()
+                .divide(BigDecimal.valueOf(count), MathContext.DECIMAL64).doubleValue();
+    }
+
+    /**
+     * Gets the sum of all prices in the group.
+     *
+     * @return The total value, or 0 if the group is empty.
+     * @throws IllegalStateException If the group is priced in several currencies.
+     */
+    public double getTotalValue() {
+        return count == 0 ? 0 : getTotalValueMoney().toDouble();
+    }
+
+    private Currency singleCurrency() {
+        if (currency == null) {
+            throw new IllegalStateException("Souvenirs are priced in " + byCurrency.keySet()
+                    + "; use forCurrency() to get the statistics of one currency");
+        }
+        return currency;
+    }
+
+    /**
+     * Returns a string representation of the statistics.
+     *
+     * @return A string containing the count, min, max, average and total, per currency.
+     */
+    @Override
+    public String toString() {
+        if (count == 0) {
+            return "PriceStatistics(count = 0)";
+        }
+        if (currency == null) {
+            return byCurrency.values().stream().map(PriceStatistics::toString)
+                    .collect(Collectors.joining(", ", "PriceStatistics(count = " + count + ", by currency = [", "])"));
+        }
+        return String.format("PriceStatistics(count = %d, min = %s, max = %s, avg = %.2f, total = %s)",
+                count, getMinPriceMoney(), getMaxPriceMoney(), getAveragePrice(), getTotalValueMoney());
+    }
+}
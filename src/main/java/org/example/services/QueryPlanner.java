@@ -0,0 +1,234 @@
+package org.example.services;
+
+import org.example.entities.Manufacturer;
+import org.example.entities.Money;
+import org.example.entities.Souvenir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Chooses how to execute a {@link SouvenirQuery}: every indexed criterion is a candidate access path
+ * with an estimated row count, the cheapest one produces the candidate souvenirs and all remaining
+ * criteria are applied to them as residual filters.
+ * <p>
+ * While the secondary indexes are still being built, every query is planned as a scan of the catalog.
+ */
+class QueryPlanner {
+
+    /**
+     * The index a criterion is looked up in.
+     */
+    enum Kind {
+        MANUFACTURER, COUNTRY, NAME, PRICE, YEAR, FULL_SCAN,
+        /**
+         * A scan that doesn't rely on the secondary indexes, used until they are built.
+         */
+        CATALOG_SCAN
+    }
+
+    /**
+     * One criterion of a query, usable either as an access path or as a residual filter.
+     *
+     * @param kind          The index the criterion is looked up in.
+     * @param description   How the criterion reads in an explain output.
+     * @param estimatedRows How many souvenirs the access path would produce.
+     * @param access        Produces the souvenirs matching the criterion through its index.
+     * @param filter        Tests a single souvenir against the criterion.
+     */
+    record Criterion(Kind kind, String description, int estimatedRows, Supplier<Stream<Souvenir>> access, Predicate<Souvenir> filter) {
+    }
+
+    /**
+     * The chosen way to execute a query.
+     *
+     * @param query      The planned query.
+     * @param accessPath The criterion that produces candidate souvenirs.
+     * @param residuals  The criteria applied to each candidate.
+     * @param candidates Every access path that was considered.
+     * @param owners     Produces the distinct manufacturers of the matching souvenirs.
+     */
+    record QueryPlan(SouvenirQuery query, Criterion accessPath, List<Criterion> residuals, List<Criterion> candidates,
+                     Function<QueryPlan, Stream<Manufacturer>> owners) {
+
+        Stream<Manufacturer> executeManufacturers() {
+            return owners.apply(this);
+        }
+
+        Stream<Souvenir> execute() {
+            Stream<Souvenir> rows = accessPath.access().get();
+            for (Criterion residual : residuals) {
+                rows = rows.filter(residual.filter());
+            }
+            for (Predicate<Souvenir> predicate : query.getPredicates()) {
+                rows = rows.filter(predicate);
+            }
+            return rows;
+        }
+
+        /**
+         * Tests a single souvenir against every criterion of the query, regardless of the access path.
+         */
+        boolean matches(Souvenir souvenir) {
+            if (!accessPath.filter().test(souvenir)) {
+                return false;
+            }
+            for (Criterion residual : residuals) {
+                if (!residual.filter().test(souvenir)) {
+                    return false;
+                }
+            }
+            for (Predicate<Souvenir> predicate : query.getPredicates()) {
+                if (!predicate.test(souvenir)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Kind accessKind() {
+            return accessPath.kind();
+        }
+
+        /**
+         * Checks whether the access path produces souvenirs in catalog order: scans walk the catalog, and a
+         * manufacturer lookup walks that manufacturer's souvenirs. Index buckets come back in no particular order.
+         */
+        boolean inCatalogOrder() {
+            Kind kind = accessKind();
+            return kind == Kind.CATALOG_SCAN || kind == Kind.FULL_SCAN || kind == Kind.MANUFACTURER;
+        }
+
+        String explain() {
+            StringBuilder out = new StringBuilder();
+            out.append("Query: ").append(query).append('\n');
+            out.append("Access path: ").append(accessPath.description())
+                    .append(" (~").append(accessPath.estimatedRows()).append(" rows)\n");
+            List<String> filters = residuals.stream().map(Criterion::description).collect(Collectors.toList());
+            if (!query.getPredicates().isEmpty()) {
+                filters.add(query.getPredicates().size() + " custom predicate(s)");
+            }
+            out.append("Residual filters: ").append(filters.isEmpty() ? "(none)" : String.join(", ", filters)).append('\n');
+            out.append("Considered: ").append(candidates.stream()
+                    .map(c -> c.description() + " ~" + c.estimatedRows())
+                    .collect(Collectors.joining(", ")));
+            return out.toString();
+        }
+    }
+
+    private final Supplier<List<Manufacturer>> catalog;
+    private final CatalogKeyIndex keyIndex;
+    private final SouvenirAttributeIndex attributeIndex;
+    private final BooleanSupplier indexesReady;
+
+    QueryPlanner(Supplier<List<Manufacturer>> catalog, CatalogKeyIndex keyIndex, SouvenirAttributeIndex attributeIndex,
+                 BooleanSupplier indexesReady) {
+        this.catalog = catalog;
+        this.keyIndex = keyIndex;
+        this.attributeIndex = attributeIndex;
+        this.indexesReady = indexesReady;
+    }
+
+    QueryPlan plan(SouvenirQuery query) {
+        if (!indexesReady.getAsBoolean()) {
+            return planCatalogScan(query);
+        }
+        List<Criterion> criteria = new ArrayList<>();
+
+        String manufacturerName = query.getManufacturerName();
+        if (manufacturerName != null) {
+            Manufacturer manufacturer = keyIndex.manufacturer(manufacturerName);
+            criteria.add(new Criterion(Kind.MANUFACTURER, "manufacturer = " + manufacturerName,
+                    manufacturer == null ? 0 : manufacturer.getSouvenirs().size(),
+                    () -> manufacturer == null ? Stream.empty() : manufacturer.getSouvenirs().stream(),
+                    s -> attributeIndex.owner(s).getName().equals(manufacturerName)));
+        }
+
+        String country = query.getCountry();
+        if (country != null) {
+            criteria.add(new Criterion(Kind.COUNTRY, "country = " + country,
+                    attributeIndex.countIn(country),
+                    () -> attributeIndex.manufacturersIn(country).stream().flatMap(m -> m.getSouvenirs().stream()),
+                    s -> attributeIndex.owner(s).getCountry().equalsIgnoreCase(country)));
+        }
+
+        String souvenirName = query.getSouvenirName();
+        if (souvenirName != null) {
+            Set<Souvenir> named = attributeIndex.named(souvenirName);
+            criteria.add(new Criterion(Kind.NAME, "name = " + souvenirName, named.size(), named::stream,
+                    s -> s.getName().equals(souvenirName)));
+        }
+
+        Money priceBelow = query.getPriceBelow();
+        if (priceBelow != null) {
+            criteria.add(new Criterion(Kind.PRICE, "price < " + priceBelow,
+                    attributeIndex.estimateCheaperThan(priceBelow),
+                    () -> attributeIndex.cheaperThan(priceBelow).values().stream().flatMap(Set::stream),
+                    s -> s.isCheaperThan(priceBelow)));
+        }
+
+        Integer releaseYear = query.getReleaseYear();
+        if (releaseYear != null) {
+            Set<Souvenir> released = attributeIndex.releasedIn(releaseYear);
+            criteria.add(new Criterion(Kind.YEAR, "year = " + releaseYear, released.size(), released::stream,
+                    s -> s.getReleaseDate() != null && s.getReleaseDate().getYear() == releaseYear));
+        }
+
+        Criterion fullScan = new Criterion(Kind.FULL_SCAN, "full scan", attributeIndex.size(),
+                () -> catalog.get().stream().flatMap(m -> m.getSouvenirs().stream()), s -> true);
+        Criterion accessPath = criteria.stream()
+                .min(Comparator.comparingInt(Criterion::estimatedRows))
+                .orElse(fullScan);
+        List<Criterion> residuals = criteria.stream().filter(c -> c != accessPath).toList();
+        List<Criterion> candidates = new ArrayList<>(criteria);
+        candidates.add(fullScan);
+        return new QueryPlan(query, accessPath, residuals, candidates,
+                plan -> plan.execute().map(attributeIndex::owner).filter(distinctByIdentity()));
+    }
+
+    /**
+     * Plans a query without the secondary indexes: manufacturers are filtered by name and country first,
+     * then their souvenirs by the souvenir criteria.
+     */
+    private QueryPlan planCatalogScan(SouvenirQuery query) {
+        String manufacturerName = query.getManufacturerName();
+        String country = query.getCountry();
+        Predicate<Manufacturer> manufacturerFilter = m -> (manufacturerName == null || m.getName().equals(manufacturerName))
+                && (country == null || m.getCountry().equalsIgnoreCase(country));
+
+        String souvenirName = query.getSouvenirName();
+        Money priceBelow = query.getPriceBelow();
+        Integer releaseYear = query.getReleaseYear();
+        Predicate<Souvenir> souvenirFilter = s -> (souvenirName == null || s.getName().equals(souvenirName))
+                && (priceBelow == null || s.isCheaperThan(priceBelow))
+                && (releaseYear == null || (s.getReleaseDate() != null && s.getReleaseDate().getYear() == releaseYear));
+        Predicate<Souvenir> filter = souvenirFilter;
+        for (Predicate<Souvenir> predicate : query.getPredicates()) {
+            souvenirFilter = souvenirFilter.and(predicate);
+        }
+        Predicate<Souvenir> filterWithPredicates = souvenirFilter;
+
+        Criterion scan = new Criterion(Kind.CATALOG_SCAN, "catalog scan (indexes still building)",
+                catalog.get().stream().mapToInt(m -> m.getSouvenirs().size()).sum(),
+                () -> catalog.get().stream().filter(manufacturerFilter).flatMap(m -> m.getSouvenirs().stream().filter(filter)),
+                s -> true);
+        return new QueryPlan(query, scan, List.of(), List.of(scan),
+                plan -> catalog.get().stream().filter(manufacturerFilter)
+                        .filter(m -> m.getSouvenirs().stream().anyMatch(filterWithPredicates)));
+    }
+
+    private static Predicate<Manufacturer> distinctByIdentity() {
+        Set<Manufacturer> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        return seen::add;
+    }
+}
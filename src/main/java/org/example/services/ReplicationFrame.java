@@ -0,0 +1,85 @@
+package org.example.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * A message of the replication stream, framed as {@code [type][sequence][sentAtMillis][length][payload]}.
+ *
+ * @param type         One of {@link #CATALOG}, {@link #MUTATION} or {@link #HEARTBEAT}.
+ * @param sequence     The sequence number of the catalog or mutation, or the primary's current one for a heartbeat.
+ * @param sentAtMillis When the primary recorded the mutation, or queued the catalog or heartbeat.
+ * @param payload      The serialized catalog or mutation; empty for a heartbeat.
+ */
+record ReplicationFrame(byte type, long sequence, long sentAtMillis, byte[] payload) {
+
+    /**
+     * The whole catalog, as a serialized list of manufacturers. Replaces the replica's catalog.
+     */
+    static final byte CATALOG = 1;
+
+    /**
+     * A single serialized mutation.
+     */
+    static final byte MUTATION = 2;
+
+    /**
+     * Tells an idle replica the primary's current sequence number, so it can tell it is not lagging.
+     */
+    static final byte HEARTBEAT = 3;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    static ReplicationFrame of(byte type, long sequence, Object payload) {
+        return new ReplicationFrame(type, sequence, System.currentTimeMillis(), serialize(payload));
+    }
+
+    static ReplicationFrame heartbeat(long sequence) {
+        return new ReplicationFrame(HEARTBEAT, sequence, System.currentTimeMillis(), EMPTY);
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeByte(type);
+        out.writeLong(sequence);
+        out.writeLong(sentAtMillis);
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+
+    static ReplicationFrame readFrom(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        long sequence = in.readLong();
+        long sentAtMillis = in.readLong();
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Corrupt replication frame: negative length " + length);
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return new ReplicationFrame(type, sequence, sentAtMillis, payload);
+    }
+
+    Object readPayload() throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown type in replication frame", e);
+        }
+    }
+
+    private static byte[] serialize(Object payload) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't serialize " + payload, e);
+        }
+        return bytes.toByteArray();
+    }
+}
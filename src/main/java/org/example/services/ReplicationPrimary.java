@@ -0,0 +1,221 @@
+package org.example.services;
+
+import org.example.entities.Manufacturer;
+import org.example.storage.Journal;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams the journaled mutations of a {@link SouvenirsService} to {@link SouvenirsReplica}s over loopback TCP.
+ * <p>
+ * A connecting replica first receives the whole catalog together with the sequence number it is current to,
+ * then every mutation recorded after it, in order. Each replica has its own bounded send queue, so a slow
+ * replica never delays writes on the primary: when its queue overflows it is disconnected, and it catches up
+ * from a fresh copy of the catalog when it reconnects. Idle connections carry heartbeats with the current
+ * sequence number, from which replicas compute their lag.
+ * <p>
+ * Each mutation is serialized once, however many replicas are connected, and the frame is shared by their
+ * queues, so the cost a write pays for replication doesn't grow with the number of replicas.
+ * <p>
+ * The catalog is copied under the service's write lock, so writes pause while a replica connects.
+ */
+public class ReplicationPrimary implements AutoCloseable {
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    private static final long HEARTBEAT_INTERVAL_MILLIS = 100;
+
+    private final SouvenirsService service;
+    private final int queueCapacity;
+    private final ServerSocket serverSocket;
+    private final Set<ReplicaLink> links = ConcurrentHashMap.newKeySet();
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    // The frame of the mutation being recorded, shared by every link. Journal callbacks run one at a time
+    // under the service's write lock, so the first link to see a mutation frames it and the rest reuse it.
+    private Journal.Entry framedEntry;
+    private ReplicationFrame mutationFrame;
+
+    /**
+     * Starts accepting replicas on a loopback port with the default send queue capacity.
+     *
+     * @param service The service whose journal to stream.
+     * @param port    The port to listen on, or 0 for any free port.
+     * @throws IOException If the port can't be bound.
+     */
+    public ReplicationPrimary(SouvenirsService service, int port) throws IOException {
+        this(service, port, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Starts accepting replicas on a loopback port.
+     *
+     * @param service       The service whose journal to stream.
+     * @param port          The port to listen on, or 0 for any free port.
+     * @param queueCapacity The number of frames a replica may fall behind before it is disconnected.
+     * @throws IOException If the port can't be bound.
+     */
+    public ReplicationPrimary(SouvenirsService service, int port, int queueCapacity) throws IOException {
+        if (service.isReplica()) {
+            throw new IllegalArgumentException("A replica can't act as a primary");
+        }
+        this.service = service;
+        this.queueCapacity = queueCapacity;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.acceptor = new Thread(this::acceptReplicas, "souvenir-replication-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Gets the port replicas connect to.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Gets the number of connected replicas.
+     *
+     * @return The number of replicas.
+     */
+    public int getReplicaCount() {
+        return links.size();
+    }
+
+    /**
+     * Stops accepting replicas and disconnects the connected ones.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        for (ReplicaLink link : new ArrayList<>(links)) {
+            link.disconnect();
+        }
+    }
+
+    private void acceptReplicas() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                ReplicaLink link = new ReplicaLink(socket);
+                links.add(link);
+                service.addJournalListener(link);
+                link.start();
+            } catch (SocketException e) {
+                // The server socket was closed.
+                return;
+            } catch (IOException e) {
+                System.out.println("Can't accept replica: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Frames a mutation for the replicas, serializing it only on its first call for that mutation.
+     * Called from the journal callbacks, under the service's write lock.
+     */
+    private ReplicationFrame frameOf(Journal.Entry entry) {
+        if (entry != framedEntry) {
+            mutationFrame = ReplicationFrame.of(ReplicationFrame.MUTATION, entry.sequence(), entry.mutation());
+            framedEntry = entry;
+        }
+        return mutationFrame;
+    }
+
+    /**
+     * One connected replica: fills its send queue from the journal callbacks and drains it on its own thread.
+     */
+    private class ReplicaLink implements JournalListener {
+
+        private final Socket socket;
+        private final BlockingQueue<ReplicationFrame> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final Thread sender;
+        private volatile boolean overflowed;
+
+        ReplicaLink(Socket socket) {
+            this.socket = socket;
+            this.sender = new Thread(this::send, "souvenir-replication-" + socket.getPort());
+            sender.setDaemon(true);
+        }
+
+        void start() {
+            sender.start();
+        }
+
+        @Override
+        public void catalogLoaded(List<Manufacturer> manufacturers, long sequence) {
+            // A new catalog supersedes everything still queued.
+            queue.clear();
+            enqueue(ReplicationFrame.of(ReplicationFrame.CATALOG, sequence, new ArrayList<>(manufacturers)));
+        }
+
+        @Override
+        public void mutationRecorded(Journal.Entry entry) {
+            if (!overflowed) {
+                enqueue(frameOf(entry));
+            }
+        }
+
+        private void enqueue(ReplicationFrame frame) {
+            if (!queue.offer(frame)) {
+                overflowed = true;
+                sender.interrupt();
+            }
+        }
+
+        private void send() {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+                while (!overflowed && !closed) {
+                    ReplicationFrame frame = queue.poll(HEARTBEAT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (frame == null) {
+                        frame = ReplicationFrame.heartbeat(service.getSequence());
+                    }
+                    frame.writeTo(out);
+                    if (queue.isEmpty()) {
+                        out.flush();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Interrupted because the queue overflowed.
+            } catch (IOException e) {
+                if (!closed) {
+                    System.out.println("Replica " + socket.getRemoteSocketAddress() + " disconnected: " + e.getMessage());
+                }
+            } finally {
+                if (overflowed) {
+                    System.out.println("Disconnecting replica " + socket.getRemoteSocketAddress() + ": it fell "
+                            + queueCapacity + " frames behind");
+                }
+                disconnect();
+            }
+        }
+
+        void disconnect() {
+            service.removeJournalListener(this);
+            links.remove(this);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed.
+            }
+        }
+    }
+}
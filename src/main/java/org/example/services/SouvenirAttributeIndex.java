@@ -0,0 +1,254 @@
+package org.example.services;
+
+import org.example.entities.Manufacturer;
+import org.example.entities.Money;
+import org.example.entities.Souvenir;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Secondary indexes over souvenir attributes: manufacturer country, price, release year and date, and name,
+ * plus the owning manufacturer of every souvenir. Souvenirs are mutable and their equality is
+ * value-based, so all buckets hold them by identity and results come back in no particular order.
+ * <p>
+ * Every manufacturer and souvenir also gets an ordinal, handed out in the order the catalog lists them and
+ * kept across renames, so a handful of matches can be put in catalog order without walking the catalog.
+ */
+class SouvenirAttributeIndex implements CatalogListener {
+
+    private final Map<Souvenir, Manufacturer> owners = new IdentityHashMap<>();
+    private final Map<Manufacturer, Long> manufacturerOrdinals = new IdentityHashMap<>();
+    private final Map<Souvenir, Long> souvenirOrdinals = new IdentityHashMap<>();
+    private long nextManufacturerOrdinal;
+    private long nextSouvenirOrdinal;
+    private final Map<String, Set<Manufacturer>> manufacturersByCountry = new HashMap<>();
+    private final Map<String, Integer> souvenirCountByCountry = new HashMap<>();
+    private final NavigableMap<Money, Set<Souvenir>> souvenirsByPrice = new TreeMap<>();
+    private final Map<Integer, Set<Souvenir>> souvenirsByYear = new HashMap<>();
+    private final NavigableMap<LocalDateTime, Set<Souvenir>> souvenirsByReleaseDate = new TreeMap<>();
+    private final Map<String, Set<Souvenir>> souvenirsByName = new HashMap<>();
+
+    static String countryKey(String country) {
+        return country.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<Souvenir> newBucket() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    private static Set<Manufacturer> newManufacturerBucket() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    int size() {
+        return owners.size();
+    }
+
+    Manufacturer owner(Souvenir souvenir) {
+        return owners.get(souvenir);
+    }
+
+    /**
+     * Orders manufacturers the way the catalog lists them.
+     *
+     * @return The comparator; valid for manufacturers in the index.
+     */
+    Comparator<Manufacturer> manufacturerCatalogOrder() {
+        return Comparator.comparingLong(manufacturerOrdinals::get);
+    }
+
+    /**
+     * Orders souvenirs the way the catalog lists them: by manufacturer, then in the order the manufacturer
+     * lists them.
+     *
+     * @return The comparator; valid for souvenirs in the index.
+     */
+    Comparator<Souvenir> souvenirCatalogOrder() {
+        return Comparator.comparing(this::owner, manufacturerCatalogOrder())
+                .thenComparingLong(souvenirOrdinals::get);
+    }
+
+    Set<Manufacturer> manufacturersIn(String country) {
+        return manufacturersByCountry.getOrDefault(countryKey(country), Set.of());
+    }
+
+    int countIn(String country) {
+        return souvenirCountByCountry.getOrDefault(countryKey(country), 0);
+    }
+
+    /**
+     * Gets the souvenirs priced below the limit in the limit's currency. Prices are keyed by currency
+     * first, so this is a range of the index.
+     *
+     * @param priceLimit The exclusive upper price limit.
+     * @return The souvenirs by price, cheapest first.
+     */
+    NavigableMap<Money, Set<Souvenir>> cheaperThan(Money priceLimit) {
+        return souvenirsByPrice.subMap(Money.ofMinor(Long.MIN_VALUE, priceLimit.getCurrency()), true, priceLimit, false);
+    }
+
+    /**
+     * Estimates how many souvenirs are cheaper than the limit, assuming prices are spread evenly
+     * between the cheapest and the most expensive souvenir.
+     *
+     * @param priceLimit The exclusive upper price limit.
+     * @return The estimated number of souvenirs.
+     */
+    int estimateCheaperThan(Money priceLimit) {
+        NavigableMap<Money, Set<Souvenir>> inCurrency = souvenirsByPrice.subMap(
+                Money.ofMinor(Long.MIN_VALUE, priceLimit.getCurrency()), true,
+                Money.ofMinor(Long.MAX_VALUE, priceLimit.getCurrency()), true);
+        if (inCurrency.isEmpty() || priceLimit.getMinorUnits() <= inCurrency.firstKey().getMinorUnits()) {
+            return 0;
+        }
+        long min = inCurrency.firstKey().getMinorUnits();
+        long max = inCurrency.lastKey().getMinorUnits();
+        if (priceLimit.getMinorUnits() > max) {
+            return size();
+        }
+        double fraction = max == min ? 1 : (priceLimit.getMinorUnits() - min) / (double) (max - min);
+        return (int) Math.ceil(fraction * size());
+    }
+
+    Set<Souvenir> releasedIn(int year) {
+        return souvenirsByYear.getOrDefault(year, Set.of());
+    }
+
+    Set<Souvenir> named(String souvenirName) {
+        return souvenirsByName.getOrDefault(souvenirName, Set.of());
+    }
+
+    NavigableMap<Money, Set<Souvenir>> byPrice() {
+        return Collections.unmodifiableNavigableMap(souvenirsByPrice);
+    }
+
+    NavigableMap<LocalDateTime, Set<Souvenir>> byReleaseDate() {
+        return Collections.unmodifiableNavigableMap(souvenirsByReleaseDate);
+    }
+
+    @Override
+    public void catalogLoaded(List<Manufacturer> manufacturers) {
+        owners.clear();
+        manufacturerOrdinals.clear();
+        souvenirOrdinals.clear();
+        nextManufacturerOrdinal = 0;
+        nextSouvenirOrdinal = 0;
+        manufacturersByCountry.clear();
+        souvenirCountByCountry.clear();
+        souvenirsByPrice.clear();
+        souvenirsByYear.clear();
+        souvenirsByReleaseDate.clear();
+        souvenirsByName.clear();
+        manufacturers.forEach(this::manufacturerAdded);
+    }
+
+    @Override
+    public void manufacturerAdded(Manufacturer manufacturer) {
+        manufacturerOrdinals.put(manufacturer, nextManufacturerOrdinal++);
+        manufacturersByCountry.computeIfAbsent(countryKey(manufacturer.getCountry()), k -> newManufacturerBucket())
+                .add(manufacturer);
+        manufacturer.getSouvenirs().forEach(s -> souvenirAdded(manufacturer, s));
+    }
+
+    @Override
+    public void manufacturerRemoved(Manufacturer manufacturer) {
+        manufacturer.getSouvenirs().forEach(s -> souvenirRemoved(manufacturer, s));
+        removeFromCountry(manufacturer, manufacturer.getCountry());
+        manufacturerOrdinals.remove(manufacturer);
+    }
+
+    @Override
+    public void manufacturerCountryChanged(Manufacturer manufacturer, String oldCountry) {
+        int souvenirs = manufacturer.getSouvenirs().size();
+        removeFromCountry(manufacturer, oldCountry);
+        souvenirCountByCountry.merge(countryKey(oldCountry), -souvenirs, Integer::sum);
+        souvenirCountByCountry.remove(countryKey(oldCountry), 0);
+        manufacturersByCountry.computeIfAbsent(countryKey(manufacturer.getCountry()), k -> newManufacturerBucket())
+                .add(manufacturer);
+        souvenirCountByCountry.merge(countryKey(manufacturer.getCountry()), souvenirs, Integer::sum);
+    }
+
+    private void removeFromCountry(Manufacturer manufacturer, String country) {
+        Set<Manufacturer> bucket = manufacturersByCountry.get(countryKey(country));
+        if (bucket != null) {
+            bucket.remove(manufacturer);
+            if (bucket.isEmpty()) {
+                manufacturersByCountry.remove(countryKey(country));
+            }
+        }
+    }
+
+    @Override
+    public void souvenirAdded(Manufacturer manufacturer, Souvenir souvenir) {
+        owners.put(souvenir, manufacturer);
+        souvenirOrdinals.put(souvenir, nextSouvenirOrdinal++);
+        souvenirCountByCountry.merge(countryKey(manufacturer.getCountry()), 1, Integer::sum);
+        souvenirsByPrice.computeIfAbsent(souvenir.getPriceMoney(), k -> newBucket()).add(souvenir);
+        addReleaseDate(souvenir);
+        souvenirsByName.computeIfAbsent(souvenir.getName(), k -> newBucket()).add(souvenir);
+    }
+
+    @Override
+    public void souvenirRemoved(Manufacturer manufacturer, Souvenir souvenir) {
+        owners.remove(souvenir);
+        souvenirOrdinals.remove(souvenir);
+        souvenirCountByCountry.merge(countryKey(manufacturer.getCountry()), -1, Integer::sum);
+        souvenirCountByCountry.remove(countryKey(manufacturer.getCountry()), 0);
+        removeFromBucket(souvenirsByPrice, souvenir.getPriceMoney(), souvenir);
+        removeReleaseDate(souvenir, souvenir.getReleaseDate());
+        removeFromBucket(souvenirsByName, souvenir.getName(), souvenir);
+    }
+
+    @Override
+    public void souvenirRenamed(Manufacturer manufacturer, Souvenir souvenir, String oldName) {
+        removeFromBucket(souvenirsByName, oldName, souvenir);
+        souvenirsByName.computeIfAbsent(souvenir.getName(), k -> newBucket()).add(souvenir);
+    }
+
+    @Override
+    public void souvenirPriceChanged(Manufacturer manufacturer, Souvenir souvenir, Money oldPrice) {
+        removeFromBucket(souvenirsByPrice, oldPrice, souvenir);
+        souvenirsByPrice.computeIfAbsent(souvenir.getPriceMoney(), k -> newBucket()).add(souvenir);
+    }
+
+    @Override
+    public void souvenirReleaseDateChanged(Manufacturer manufacturer, Souvenir souvenir, LocalDateTime oldReleaseDate) {
+        removeReleaseDate(souvenir, oldReleaseDate);
+        addReleaseDate(souvenir);
+    }
+
+    private void addReleaseDate(Souvenir souvenir) {
+        LocalDateTime releaseDate = souvenir.getReleaseDate();
+        if (releaseDate != null) {
+            souvenirsByYear.computeIfAbsent(releaseDate.getYear(), k -> newBucket()).add(souvenir);
+            souvenirsByReleaseDate.computeIfAbsent(releaseDate, k -> newBucket()).add(souvenir);
+        }
+    }
+
+    private void removeReleaseDate(Souvenir souvenir, LocalDateTime releaseDate) {
+        if (releaseDate != null) {
+            removeFromBucket(souvenirsByYear, releaseDate.getYear(), souvenir);
+            removeFromBucket(souvenirsByReleaseDate, releaseDate, souvenir);
+        }
+    }
+
+    private static <K> void removeFromBucket(Map<K, Set<Souvenir>> index, K key, Souvenir souvenir) {
+        Set<Souvenir> bucket = index.get(key);
+        if (bucket != null) {
+            bucket.remove(souvenir);
+            if (bucket.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+}
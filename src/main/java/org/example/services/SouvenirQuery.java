@@ -0,0 +1,154 @@
+package org.example.services;
+
+import org.example.entities.Money;
+import org.example.entities.Souvenir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A combination of criteria over souvenirs and their manufacturers, executed by
+ * {@link SouvenirsService#findSouvenirs(SouvenirQuery)}. Every criterion that is set must match.
+ * <p>
+ * The service picks the most selective indexed criterion as the access path and applies the
+ * others as filters, so a combined query costs about as much as its most selective criterion.
+ * Criteria added through {@link #where(Predicate)} are never indexed and are always applied as filters.
+ */
+public class SouvenirQuery {
+
+    private String manufacturerName;
+    private String country;
+    private String souvenirName;
+    private Money priceBelow;
+    private Integer releaseYear;
+    private final List<Predicate<Souvenir>> predicates = new ArrayList<>();
+
+    /**
+     * Creates a query without criteria, which matches every souvenir.
+     *
+     * @return The new query.
+     */
+    public static SouvenirQuery create() {
+        return new SouvenirQuery();
+    }
+
+    /**
+     * Restricts the query to souvenirs of the manufacturer with the given name.
+     *
+     * @param manufacturerName The exact manufacturer name.
+     * @return This query.
+     */
+    public SouvenirQuery manufacturer(String manufacturerName) {
+        this.manufacturerName = manufacturerName;
+        return this;
+    }
+
+    /**
+     * Restricts the query to souvenirs of manufacturers from the given country, ignoring case.
+     *
+     * @param country The manufacturer country.
+     * @return This query.
+     */
+    public SouvenirQuery country(String country) {
+        this.country = country;
+        return this;
+    }
+
+    /**
+     * Restricts the query to souvenirs with the given name.
+     *
+     * @param souvenirName The exact souvenir name.
+     * @return This query.
+     */
+    public SouvenirQuery named(String souvenirName) {
+        this.souvenirName = souvenirName;
+        return this;
+    }
+
+    /**
+     * Restricts the query to souvenirs cheaper than the given limit in the {@link Money#DEFAULT_CURRENCY}.
+     * The limit is rounded to the nearest minor unit.
+     *
+     * @param priceLimit The exclusive upper price limit.
+     * @return This query.
+     */
+    public SouvenirQuery priceBelow(double priceLimit) {
+        return priceBelow(Money.of(priceLimit));
+    }
+
+    /**
+     * Restricts the query to souvenirs priced in the limit's currency and cheaper than the limit.
+     *
+     * @param priceLimit The exclusive upper price limit.
+     * @return This query.
+     */
+    public SouvenirQuery priceBelow(Money priceLimit) {
+        this.priceBelow = priceLimit;
+        return this;
+    }
+
+    /**
+     * Restricts the query to souvenirs released in the given year.
+     *
+     * @param year The release year.
+     * @return This query.
+     */
+    public SouvenirQuery releasedIn(int year) {
+        this.releaseYear = year;
+        return this;
+    }
+
+    /**
+     * Adds an arbitrary filter on souvenirs.
+     *
+     * @param predicate The filter.
+     * @return This query.
+     */
+    public SouvenirQuery where(Predicate<Souvenir> predicate) {
+        predicates.add(predicate);
+        return this;
+    }
+
+    String getManufacturerName() {
+        return manufacturerName;
+    }
+
+    String getCountry() {
+        return country;
+    }
+
+    String getSouvenirName() {
+        return souvenirName;
+    }
+
+    Money getPriceBelow() {
+        return priceBelow;
+    }
+
+    Integer getReleaseYear() {
+        return releaseYear;
+    }
+
+    List<Predicate<Souvenir>> getPredicates() {
+        return Collections.unmodifiableList(predicates);
+    }
+
+    /**
+     * Returns a string representation of the query criteria.
+     *
+     * @return The criteria joined with "and".
+     */
+    @Override
+    public String toString() {
+        List<String> criteria = new ArrayList<>();
+        if (manufacturerName != null) criteria.add("manufacturer = " + manufacturerName);
+        if (country != null) criteria.add("country = " + country);
+        if (souvenirName != null) criteria.add("name = " + souvenirName);
+        if (priceBelow != null) criteria.add("price < " + priceBelow);
+        if (releaseYear != null) criteria.add("year = " + releaseYear);
+        if (!predicates.isEmpty()) criteria.add(predicates.size() + " custom predicate(s)");
+        return criteria.isEmpty() ? "(all)" : String.join(" and ", criteria);
+    }
+}
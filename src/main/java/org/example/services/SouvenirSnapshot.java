@@ -0,0 +1,78 @@
+package org.example.services;
+
+import org.example.entities.Money;
+import org.example.entities.Souvenir;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of a {@link Souvenir} as it was in one {@link CatalogSnapshot}.
+ */
+public final class SouvenirSnapshot {
+
+    private final String name;
+    private final String manufacturerDetails;
+    private final LocalDateTime releaseDate;
+    private final Money price;
+
+    private SouvenirSnapshot(Souvenir souvenir) {
+        this.name = souvenir.getName();
+        this.manufacturerDetails = souvenir.getManufacturerDetails();
+        this.releaseDate = souvenir.getReleaseDate();
+        this.price = souvenir.getPriceMoney();
+    }
+
+    static SouvenirSnapshot of(Souvenir souvenir) {
+        return new SouvenirSnapshot(souvenir);
+    }
+
+    /**
+     * Gets the name of the souvenir.
+     *
+     * @return The name of the souvenir.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the manufacturer details of the souvenir.
+     *
+     * @return The manufacturer details of the souvenir.
+     */
+    public String getManufacturerDetails() {
+        return manufacturerDetails;
+    }
+
+    /**
+     * Gets the release date of the souvenir.
+     *
+     * @return The release date of the souvenir.
+     */
+    public LocalDateTime getReleaseDate() {
+        return releaseDate;
+    }
+
+    /**
+     * Gets the price of the souvenir.
+     *
+     * @return The price of the souvenir.
+     */
+    public double getPrice() {
+        return price.toDouble();
+    }
+
+    /**
+     * Gets the exact price of the souvenir.
+     *
+     * @return The price of the souvenir.
+     */
+    public Money getPriceMoney() {
+        return price;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Souvenir(\n\t\tname = %s, \n\t\tmanufacturerDetails = %s, \n\t\treleaseDate = %s, \n\t\tprice = %s)", name, manufacturerDetails, releaseDate, price);
+    }
+}
@@ -0,0 +1,185 @@
+package org.example.services;
+
+import org.example.entities.Manufacturer;
+import org.example.storage.Journal;
+import org.example.storage.Mutation;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.List;
+
+/**
+ * Follows a {@link ReplicationPrimary} over loopback TCP and keeps a read-only {@link SouvenirsService} in step
+ * with it, so reads can be spread over several processes.
+ * <p>
+ * On every (re)connect the replica replaces its catalog with the copy the primary sends and then applies the
+ * primary's mutations in order. Replication is asynchronous: a client that needs to read its own write takes
+ * {@link SouvenirsService#getSequence()} from the primary after writing and waits for it with
+ * {@link #awaitSequence(long, long)} before reading here.
+ */
+public class SouvenirsReplica implements AutoCloseable {
+
+    private static final long RECONNECT_DELAY_MILLIS = 500;
+
+    private final int port;
+    private final SouvenirsService service = SouvenirsService.replica();
+    private final Object progress = new Object();
+    private final Thread receiver;
+    private volatile Socket socket;
+    private volatile boolean connected;
+    private volatile boolean closed;
+    private volatile long primarySequence;
+    private volatile long lagMillis;
+
+    /**
+     * Starts following the primary listening on a loopback port. Connection failures are retried
+     * until the replica is closed.
+     *
+     * @param port The port of the primary.
+     */
+    public SouvenirsReplica(int port) {
+        this.port = port;
+        this.receiver = new Thread(this::follow, "souvenir-replica-" + port);
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    /**
+     * Gets the read-only service holding the replicated catalog.
+     *
+     * @return The replica service.
+     */
+    public SouvenirsService getService() {
+        return service;
+    }
+
+    /**
+     * Checks whether the replica is currently connected to the primary.
+     *
+     * @return true if connected.
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Gets the sequence number of the newest mutation applied to the replica.
+     *
+     * @return The applied sequence number.
+     */
+    public long getAppliedSequence() {
+        return service.getSequence();
+    }
+
+    /**
+     * Gets the newest sequence number the primary has reported.
+     *
+     * @return The primary's sequence number.
+     */
+    public long getPrimarySequence() {
+        return primarySequence;
+    }
+
+    /**
+     * Gets how many mutations the replica is behind the primary, as of the primary's last report.
+     *
+     * @return The number of mutations not yet applied.
+     */
+    public long getLag() {
+        return Math.max(0, primarySequence - getAppliedSequence());
+    }
+
+    /**
+     * Gets how long the newest applied mutation took from being recorded on the primary to being applied here;
+     * 0 once the replica has caught up.
+     *
+     * @return The replication delay in milliseconds.
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    /**
+     * Blocks until the replica has applied the mutation with the given sequence number, e.g. a client's own write.
+     *
+     * @param sequence      The sequence number returned by {@link SouvenirsService#getSequence()} on the primary.
+     * @param timeoutMillis How long to wait at most.
+     * @return true if the mutation has been applied, false if the timeout expired first.
+     * @throws InterruptedException If the waiting thread is interrupted.
+     */
+    public boolean awaitSequence(long sequence, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+        synchronized (progress) {
+            while (getAppliedSequence() < sequence) {
+                long remainingMillis = (deadline - System.nanoTime()) / 1_000_000;
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+                progress.wait(remainingMillis);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Disconnects from the primary. The replicated catalog stays readable but no longer changes.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        receiver.interrupt();
+        Socket current = socket;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private void follow() {
+        while (!closed) {
+            try (Socket current = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                socket = current;
+                connected = true;
+                receive(new DataInputStream(new BufferedInputStream(current.getInputStream())));
+            } catch (IOException e) {
+                if (!closed && connected) {
+                    System.out.println("Lost connection to primary on port " + port + ": " + e.getMessage());
+                }
+            } finally {
+                connected = false;
+            }
+            try {
+                Thread.sleep(RECONNECT_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void receive(DataInputStream in) throws IOException {
+        while (!closed) {
+            ReplicationFrame frame = ReplicationFrame.readFrom(in);
+            switch (frame.type()) {
+                case ReplicationFrame.CATALOG ->
+                        service.replicateCatalog((List<Manufacturer>) frame.readPayload(), frame.sequence());
+                case ReplicationFrame.MUTATION -> {
+                    service.replicateMutation(new Journal.Entry(frame.sequence(), (Mutation) frame.readPayload()));
+                    lagMillis = Math.max(0, System.currentTimeMillis() - frame.sentAtMillis());
+                }
+                case ReplicationFrame.HEARTBEAT -> {
+                    if (frame.sequence() <= getAppliedSequence()) {
+                        lagMillis = 0;
+                    }
+                }
+                default -> throw new IOException("Unknown replication frame type " + frame.type());
+            }
+            primarySequence = frame.sequence();
+            synchronized (progress) {
+                progress.notifyAll();
+            }
+        }
+    }
+}
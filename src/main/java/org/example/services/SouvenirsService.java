@@ -1,23 +1,90 @@
 package org.example.services;
 
 import org.example.entities.Manufacturer;
+import org.example.entities.Money;
+import org.example.entities.ReleaseDates;
 import org.example.entities.Souvenir;
 import org.example.storage.DataManager;
+import org.example.storage.IoRateLimiter;
+import org.example.storage.Journal;
+import org.example.storage.Mutation;
+import org.example.storage.NameFilter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 /**
  * Service class for managing Souvenirs and Manufacturers, providing various operations on the data.
+ * <p>
+ * The catalog is recovered from the DataManager once, by reading the latest checkpoint and replaying the
+ * journal tail, and is then kept in memory. Every mutation is applied in memory, notifies the registered
+ * {@link CatalogListener}s (the indexes) and is appended to the journal; every
+ * {@link #setCheckpointInterval(int) few} mutations the {@link StorageCompactor} writes a new checkpoint
+ * in the background.
+ * <p>
+ * The key index is built before the service answers its first query. The secondary indexes are built in the
+ * background; until they are ready, queries scan the catalog, while name searches and statistics wait for them.
+ * The service is safe for use from multiple threads: reads share a lock, mutations take it exclusively.
+ * Entities go in and out of the service as copies, so changing one never bypasses the journal and the
+ * indexes. Readers that need a consistent view of the whole catalog without copying it use
+ * {@link #snapshot()} instead.
+ * <p>
+ * A {@link ReplicationPrimary} streams the journaled mutations to replica services in other processes;
+ * a replica service has no storage of its own, follows that stream and rejects mutations.
  */
 public class SouvenirsService {
 
+    private static final Comparator<Souvenir> CHEAPEST_FIRST = Comparator
+            .comparing((Souvenir s) -> s.getCurrency().getCurrencyCode())
+            .thenComparingLong(Souvenir::getPriceMinorUnits);
+    private static final Comparator<Souvenir> MOST_EXPENSIVE_FIRST = CHEAPEST_FIRST.reversed();
+    private static final Comparator<Souvenir> NEWEST_FIRST = Comparator.comparing(Souvenir::getReleaseDate).reversed();
+
+    private static final int DEFAULT_CHECKPOINT_INTERVAL = 1000;
+    private static final long NOTHING_RECORDED = -1;
+
     private final DataManager dataManager;
+    private final StorageCompactor compactor;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final CatalogKeyIndex keyIndex = new CatalogKeyIndex();
+    private final SouvenirAttributeIndex attributeIndex = new SouvenirAttributeIndex();
+    private final CatalogAggregates aggregates = new CatalogAggregates();
+    private final NameSearchIndex nameSearchIndex = new NameSearchIndex();
+    private final BackgroundIndexBuilder secondaryIndexes =
+            new BackgroundIndexBuilder(lock, keyIndex, List.of(attributeIndex, aggregates, nameSearchIndex));
+    private final CatalogVersions versions = new CatalogVersions();
+    private final ChangeFeed changeFeed = new ChangeFeed();
+    private final List<CatalogListener> listeners = new ArrayList<>(List.of(keyIndex, versions, secondaryIndexes, changeFeed));
+    private final List<JournalListener> journalListeners = new CopyOnWriteArrayList<>();
+    private final QueryPlanner queryPlanner =
+            new QueryPlanner(() -> this.manufacturers, keyIndex, attributeIndex, secondaryIndexes::isReady);
+    private volatile List<Manufacturer> manufacturers;
+    // Name filters of the checkpoint, loaded by the first insert made before the catalog; guarded by the write lock.
+    private NameFilter storedNames;
+    private volatile StartupReport startupReport;
+    private volatile int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+    private volatile long replicatedSequence = NOTHING_RECORDED;
 
     /**
      * Initializes a new instance of SouvenirsService with the provided DataManager.
@@ -26,6 +93,7 @@ public class SouvenirsService {
      */
     public SouvenirsService(DataManager dataManager) {
         this.dataManager = dataManager;
+        this.compactor = new StorageCompactor(this, dataManager);
     }
 
     /**
@@ -34,35 +102,666 @@ public class SouvenirsService {
      * @param filename The filename for data storage.
      */
     public SouvenirsService(String filename) {
-        this.dataManager = new DataManager(filename);
+        this(new DataManager(filename));
+    }
+
+    private SouvenirsService() {
+        this.dataManager = null;
+        this.compactor = null;
+    }
+
+    /**
+     * Creates a read-only service without storage, whose catalog is maintained by a {@link SouvenirsReplica}.
+     *
+     * @return The replica service.
+     */
+    static SouvenirsService replica() {
+        return new SouvenirsService();
+    }
+
+    /**
+     * Checks whether this service is a read-only replica.
+     *
+     * @return true if the catalog follows a primary and can't be changed directly.
+     */
+    public boolean isReplica() {
+        return dataManager == null;
+    }
+
+    /**
+     * Gets the sequence number of the newest mutation in the catalog. A client that has written to the primary
+     * can pass this number to {@link SouvenirsReplica#awaitSequence(long, long)} to read its own writes.
+     *
+     * @return The sequence number, or -1 on a replica that hasn't received the catalog yet.
+     */
+    public long getSequence() {
+        ensureLoaded();
+        return isReplica() ? replicatedSequence : dataManager.getJournal().getLastSequence();
+    }
+
+    /**
+     * Gets the compactor that writes checkpoints in the background, to configure its rate limit or read its
+     * metrics.
+     *
+     * @return The compactor, or null on a replica.
+     */
+    public StorageCompactor getCompactor() {
+        return compactor;
     }
 
     /**
-     * Saves the provided list of manufacturers using the DataManager.
+     * Sets how many mutations may accumulate in the journal before a new checkpoint is written.
+     * Fewer mutations make restarts faster; more make writes cheaper.
+     *
+     * @param checkpointInterval The number of mutations between checkpoints.
+     */
+    public void setCheckpointInterval(int checkpointInterval) {
+        if (checkpointInterval <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive: " + checkpointInterval);
+        }
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Recovers the catalog, if that hasn't happened yet, and reports how long each startup phase took.
+     * Returns as soon as the service can answer queries; the secondary indexes keep building in the background.
+     *
+     * @return The startup timings.
+     */
+    public StartupReport start() {
+        ensureLoaded();
+        return startupReport;
+    }
+
+    /**
+     * Returns the current immutable version of the catalog. Taking and reading a snapshot never locks;
+     * the snapshot stays unchanged however the catalog is modified afterwards.
+     *
+     * @return The current catalog snapshot.
+     */
+    public CatalogSnapshot snapshot() {
+        ensureLoaded();
+        return versions.current();
+    }
+
+    /**
+     * Gets the feed of changes to the catalog. Subscribers receive an event for every change made after they
+     * subscribed; to start from a consistent state, subscribe first and then take a {@link #snapshot()}.
+     *
+     * @return The change feed.
+     */
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
+    /**
+     * Blocks until the secondary indexes are built.
+     */
+    public void awaitIndexes() {
+        ensureLoaded();
+        secondaryIndexes.await();
+    }
+
+    /**
+     * Replaces the catalog with copies of the provided manufacturers and saves it using the DataManager
+     * as a new checkpoint. The checkpoint is written first: if the write fails, the catalog, its indexes
+     * and the replicas keep the previous contents.
      *
      * @param manufacturerList The list of manufacturers to be saved.
+     * @throws UncheckedIOException If the checkpoint can't be written.
      */
     public void save(List<Manufacturer> manufacturerList) {
-        dataManager.saveData(manufacturerList);
+        ensureLoaded();
+        checkWritable();
+        lock.writeLock().lock();
+        try {
+            List<Manufacturer> replacement = new ArrayList<>(copyOfManufacturers(manufacturerList));
+            long sequence = dataManager.getJournal().reserve();
+            dataManager.saveData(replacement, sequence);
+            manufacturers = replacement;
+            listeners.forEach(l -> l.catalogLoaded(manufacturers));
+            journalListeners.forEach(l -> l.catalogLoaded(manufacturers, sequence));
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
-     * Loads a list of manufacturers from the DataManager.
+     * Returns a copy of the in-memory list of manufacturers, recovering it from the DataManager on first use.
      *
-     * Attempts to load serialized data from the DataManager, returning a list of manufacturers.
-     * If no data is found or an error occurs during loading, it returns an empty list and prints
-     * a message to indicate the absence or error.
+     * Attempts to load the latest checkpoint from the DataManager and replays the mutations journaled
+     * after it. If no data is found or an error occurs during loading, the catalog starts out empty.
      *
-     * @return A list of loaded manufacturers or an empty list if no data is found or an error occurs.
+     * @return An unmodifiable copy of the list of manufacturers, empty if no data is found or an error occurs.
      */
     public List<Manufacturer> load() {
-        List<Manufacturer> manufacturers = dataManager.loadData();
-        if(manufacturers == null) return new ArrayList<>();
-        return manufacturers;
+        ensureLoaded();
+        return read(() -> copyOfManufacturers(manufacturers));
+    }
+
+    /**
+     * Checks whether the catalog has no manufacturers. Before the catalog is loaded, this reads only the
+     * header of the data file, as long as the journal is empty.
+     *
+     * @return true if the catalog is empty.
+     */
+    public boolean isEmpty() {
+        DataManager.Header header = storedStatistics();
+        return header != null ? header.isEmpty() : getManufacturerCount() == 0;
+    }
+
+    /**
+     * Gets the number of manufacturers. Before the catalog is loaded, this reads only the header of the data
+     * file, as long as the journal is empty.
+     *
+     * @return The number of manufacturers.
+     */
+    public int getManufacturerCount() {
+        DataManager.Header header = storedStatistics();
+        return header != null ? header.manufacturerCount() : read(keyIndex::manufacturerCount);
+    }
+
+    /**
+     * Gets the number of souvenirs. Before the catalog is loaded, this reads only the header of the data
+     * file, as long as the journal is empty.
+     *
+     * @return The number of souvenirs.
+     */
+    public int getSouvenirCount() {
+        DataManager.Header header = storedStatistics();
+        return header != null ? header.souvenirCount() : read(keyIndex::souvenirCount);
+    }
+
+    /**
+     * Gets the statistics of the checkpoint if they describe the catalog exactly: the catalog hasn't been
+     * loaded yet, no mutations are journaled on top of the checkpoint, and the file records statistics.
+     *
+     * @return The checkpoint header, or null if the catalog has to be consulted instead.
+     */
+    private DataManager.Header storedStatistics() {
+        if (manufacturers != null || isReplica() || dataManager.getJournal().size() > 0) {
+            return null;
+        }
+        DataManager.Header header = dataManager.readHeader();
+        return header != null && header.hasStatistics() ? header : null;
+    }
+
+    /**
+     * Checks whether the price or year criterion of a query lies outside the ranges recorded in the
+     * checkpoint header, in which case nothing can match and the catalog needn't be loaded.
+     *
+     * @param query The query.
+     * @return true if the query certainly matches nothing.
+     */
+    private boolean excludedByStoredStatistics(SouvenirQuery query) {
+        if (query.getPriceBelow() == null && query.getReleaseYear() == null) {
+            return false;
+        }
+        DataManager.Header header = storedStatistics();
+        return header != null
+                && (header.souvenirCount() == 0
+                || query.getPriceBelow() != null && !header.mayHavePriceBelow(query.getPriceBelow().toDouble())
+                || query.getReleaseYear() != null && !header.mayHaveYear(query.getReleaseYear()));
+    }
+
+    private void ensureLoaded() {
+        if (manufacturers != null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (manufacturers == null) {
+                recover();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Maps the latest checkpoint, replays the journal tail on top of it, builds the key index and starts
+     * the background build of the secondary indexes. Called under the write lock.
+     */
+    private void recover() {
+        long start = System.nanoTime();
+        DataManager.Snapshot snapshot = isReplica() ? new DataManager.Snapshot(null, 0) : dataManager.loadSnapshot();
+        List<Journal.Entry> tail;
+        try {
+            tail = isReplica() ? List.of() : dataManager.getJournal().recover(snapshot.sequence());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't recover journal", e);
+        }
+        // Sized for the checkpoint plus every manufacturer the tail may add, so the replay never grows it.
+        List<Manufacturer> checkpointed = snapshot.manufacturers() == null ? List.of() : snapshot.manufacturers();
+        List<Manufacturer> recovered = new ArrayList<>(checkpointed.size() + tail.size());
+        recovered.addAll(checkpointed);
+        int checkpointedManufacturers = recovered.size();
+        long snapshotLoaded = System.nanoTime();
+
+        keyIndex.catalogLoaded(recovered);
+        long keyIndexBuilt = System.nanoTime();
+
+        manufacturers = recovered;
+        storedNames = null;
+        // Only the key index follows the replay; every other listener sees the final catalog at once.
+        List<CatalogListener> replayListeners = List.of(keyIndex);
+        tail.forEach(entry -> replay(entry, replayListeners));
+        long replayed = System.nanoTime();
+
+        listeners.stream().filter(l -> l != keyIndex).forEach(l -> l.catalogLoaded(recovered));
+        long ready = System.nanoTime();
+
+        startupReport = new StartupReport(snapshotLoaded - start, checkpointedManufacturers, snapshot.sequence(),
+                replayed - keyIndexBuilt, tail.size(), keyIndexBuilt - snapshotLoaded, ready - start,
+                secondaryIndexes::getBuildNanos);
+    }
+
+    /**
+     * Registers a listener that is notified of every change to the catalog.
+     *
+     * @param listener The listener to register.
+     */
+    public void addCatalogListener(CatalogListener listener) {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            listeners.add(listener);
+            listener.catalogLoaded(manufacturers);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Registers a listener for the journaled mutations and passes it the current catalog.
+     *
+     * @param listener The listener to register.
+     */
+    void addJournalListener(JournalListener listener) {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            journalListeners.add(listener);
+            listener.catalogLoaded(manufacturers, getSequence());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Unregisters a journal listener; it receives no further callbacks once this returns.
+     *
+     * @param listener The listener to unregister.
+     */
+    void removeJournalListener(JournalListener listener) {
+        lock.writeLock().lock();
+        try {
+            journalListeners.remove(listener);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the catalog of a replica with one received from the primary.
+     *
+     * @param manufacturerList The primary's catalog.
+     * @param sequence         The sequence number of the newest mutation the catalog contains.
+     */
+    void replicateCatalog(List<Manufacturer> manufacturerList, long sequence) {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            manufacturers = new ArrayList<>(manufacturerList);
+            listeners.forEach(l -> l.catalogLoaded(manufacturers));
+            replicatedSequence = sequence;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a mutation received from the primary to the catalog of a replica.
+     *
+     * @param entry The mutation and its sequence number on the primary.
+     */
+    void replicateMutation(Journal.Entry entry) {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            if (entry.sequence() > replicatedSequence) {
+                replay(entry, listeners);
+                replicatedSequence = entry.sequence();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void checkWritable() {
+        if (isReplica()) {
+            throw new IllegalStateException("Replica catalogs are read-only; write to the primary instead");
+        }
+    }
+
+    private <T> T read(Supplier<T> query) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a mutation under the write lock, then waits for its journal record to become durable
+     * outside the lock, so concurrent writers share one fsync.
+     *
+     * @param mutation Validates and records the change; returns its sequence number or {@link #NOTHING_RECORDED}.
+     */
+    private void write(LongSupplier mutation) {
+        ensureLoaded();
+        checkWritable();
+        long sequence;
+        lock.writeLock().lock();
+        try {
+            sequence = mutation.getAsLong();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (sequence == NOTHING_RECORDED) {
+            return;
+        }
+        Journal journal = dataManager.getJournal();
+        journal.sync(sequence);
+        if (journal.getEntriesSinceCheckpoint() >= checkpointInterval) {
+            compactor.request();
+        }
+    }
+
+    /**
+     * Writes the catalog as a new checkpoint, which also empties the journal.
+     * Readers keep running meanwhile; writers wait.
+     */
+    public void checkpoint() {
+        ensureLoaded();
+        if (isReplica()) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            Journal journal = dataManager.getJournal();
+            if (journal.getEntriesSinceCheckpoint() > 0) {
+                dataManager.saveData(manufacturers, journal.getLastSequence());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes a checkpoint from a snapshot of the catalog. The lock is held only to capture the snapshot and
+     * its sequence number, so writers carry on while the checkpoint is copied, serialized and written.
+     *
+     * @param limiter Paces the write, or null to write at full speed.
+     * @return The sequence number the checkpoint covers, or {@link #NOTHING_RECORDED} if there was nothing
+     * to checkpoint or a newer checkpoint was saved meanwhile.
+     */
+    long checkpointInBackground(IoRateLimiter limiter) {
+        ensureLoaded();
+        if (isReplica()) {
+            return NOTHING_RECORDED;
+        }
+        CatalogSnapshot snapshot;
+        long sequence;
+        lock.readLock().lock();
+        try {
+            Journal journal = dataManager.getJournal();
+            if (journal.getEntriesSinceCheckpoint() == 0) {
+                return NOTHING_RECORDED;
+            }
+            snapshot = versions.current();
+            sequence = journal.getLastSequence();
+        } finally {
+            lock.readLock().unlock();
+        }
+        return dataManager.saveData(snapshot.toManufacturers(), sequence, limiter) ? sequence : NOTHING_RECORDED;
+    }
+
+    /**
+     * Checks a mutation against the rules the entities enforce, and records it if it passes; otherwise prints
+     * why and records nothing. Called under the write lock.
+     *
+     * @param mutation The mutation.
+     * @return The sequence number of the journal record, or {@link #NOTHING_RECORDED}.
+     */
+    private long recordIfValid(Mutation mutation) {
+        String rejection = rejection(mutation);
+        if (rejection != null) {
+            System.out.println(rejection);
+            return NOTHING_RECORDED;
+        }
+        return record(mutation);
+    }
+
+    /**
+     * Appends a mutation to the journal, then applies it to the catalog and notifies the listeners.
+     * The mutation is checked first, so a mutation the entities would refuse is never journaled; if the
+     * append fails, the catalog and the listeners never see the mutation. Called under the write lock.
+     *
+     * @param mutation The mutation.
+     * @return The sequence number of the journal record.
+     * @throws IllegalArgumentException If the mutation would be refused by the entities.
+     */
+    private long record(Mutation mutation) {
+        String rejection = rejection(mutation);
+        if (rejection != null) {
+            throw new IllegalArgumentException(rejection);
+        }
+        long sequence = dataManager.getJournal().append(mutation);
+        apply(mutation, listeners);
+        if (!journalListeners.isEmpty()) {
+            Journal.Entry entry = new Journal.Entry(sequence, mutation);
+            journalListeners.forEach(l -> l.mutationRecorded(entry));
+        }
+        return sequence;
+    }
+
+    /**
+     * Checks a mutation against the rules the entity setters enforce. Uniqueness of names is checked by the
+     * callers against the current catalog.
+     *
+     * @param mutation The mutation.
+     * @return Why the mutation can't be applied, or null if it can.
+     */
+    private static String rejection(Mutation mutation) {
+        if (mutation instanceof Mutation.Batch batch) {
+            for (Mutation m : batch.mutations()) {
+                String rejection = rejection(m);
+                if (rejection != null) {
+                    return rejection;
+                }
+            }
+        } else if (mutation instanceof Mutation.AddManufacturer add) {
+            return add.manufacturer() == null ? "Can't add a manufacturer. Value is absent." : null;
+        } else if (mutation instanceof Mutation.RenameManufacturer rename) {
+            return isEmpty(rename.newName()) ? "Manufacturer name can't be empty" : null;
+        } else if (mutation instanceof Mutation.ChangeManufacturerCountry change) {
+            return isEmpty(change.newCountry()) ? "Manufacturer country can't be empty" : null;
+        } else if (mutation instanceof Mutation.AddSouvenir add) {
+            return add.souvenir() == null ? "Can't add a souvenir. Value is absent." : null;
+        } else if (mutation instanceof Mutation.RenameSouvenir rename) {
+            return isEmpty(rename.newName()) ? "Souvenir name can't be empty" : null;
+        } else if (mutation instanceof Mutation.ChangeSouvenirDetails change) {
+            return isEmpty(change.newDetails()) ? "Souvenir manufacturer details can't be empty" : null;
+        } else if (mutation instanceof Mutation.ChangeSouvenirPrice change) {
+            return change.newPrice() == null || change.newPrice().getMinorUnits() < 0
+                    ? "Souvenir price can't be negative" : null;
+        }
+        return null;
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    /**
+     * Applies a journaled mutation, during recovery or on a replica. A record that can't be applied is
+     * printed and skipped, so one bad record doesn't stop the service from starting.
+     *
+     * @param entry   The journal entry.
+     * @param targets The listeners to notify.
+     */
+    private void replay(Journal.Entry entry, List<CatalogListener> targets) {
+        String rejection = rejection(entry.mutation());
+        if (rejection != null) {
+            System.out.println("Skipping journal record " + entry.sequence() + ": " + rejection);
+            return;
+        }
+        try {
+            apply(entry.mutation(), targets);
+        } catch (RuntimeException e) {
+            System.out.println("Skipping journal record " + entry.sequence() + ": " + e);
+        }
+    }
+
+    /**
+     * Applies a mutation to the in-memory catalog. Used both for new mutations and for journal replay;
+     * mutations that no longer match the catalog are ignored.
+     *
+     * @param mutation The mutation to apply.
+     * @param targets  The listeners to notify.
+     */
+    private void apply(Mutation mutation, List<CatalogListener> targets) {
+        if (mutation instanceof Mutation.Batch batch) {
+            targets.forEach(CatalogListener::batchStarted);
+            try {
+                applyBatch(batch.mutations(), targets);
+            } finally {
+                targets.forEach(CatalogListener::batchFinished);
+            }
+            return;
+        }
+        if (mutation instanceof Mutation.AddManufacturer add) {
+            Manufacturer manufacturer = add.manufacturer();
+            manufacturers.add(manufacturer);
+            targets.forEach(l -> l.manufacturerAdded(manufacturer));
+            return;
+        }
+        Manufacturer manufacturer = keyIndex.manufacturer(mutation.manufacturerName());
+        if (manufacturer == null) {
+            return;
+        }
+        try {
+            if (mutation instanceof Mutation.RemoveManufacturer) {
+                manufacturers.remove(manufacturer);
+                targets.forEach(l -> l.manufacturerRemoved(manufacturer));
+            } else if (mutation instanceof Mutation.RenameManufacturer rename) {
+                manufacturer.setName(rename.newName());
+                targets.forEach(l -> l.manufacturerRenamed(manufacturer, rename.manufacturerName()));
+            } else if (mutation instanceof Mutation.ChangeManufacturerCountry change) {
+                String oldCountry = manufacturer.getCountry();
+                manufacturer.setCountry(change.newCountry());
+                targets.forEach(l -> l.manufacturerCountryChanged(manufacturer, oldCountry));
+            } else if (mutation instanceof Mutation.AddSouvenir add) {
+                manufacturer.addSouvenir(add.souvenir());
+                targets.forEach(l -> l.souvenirAdded(manufacturer, add.souvenir()));
+            } else if (mutation instanceof Mutation.RemoveSouvenir remove) {
+                Souvenir souvenir = manufacturer.removeSouvenir(remove.souvenirName());
+                if (souvenir != null) {
+                    targets.forEach(l -> l.souvenirRemoved(manufacturer, souvenir));
+                }
+            } else if (mutation instanceof Mutation.RenameSouvenir rename) {
+                Souvenir souvenir = keyIndex.souvenir(rename.manufacturerName(), rename.souvenirName());
+                if (souvenir != null) {
+                    souvenir.setName(rename.newName());
+                    targets.forEach(l -> l.souvenirRenamed(manufacturer, souvenir, rename.souvenirName()));
+                }
+            } else if (mutation instanceof Mutation.ChangeSouvenirDetails change) {
+                Souvenir souvenir = keyIndex.souvenir(change.manufacturerName(), change.souvenirName());
+                if (souvenir != null) {
+                    souvenir.setManufacturerDetails(change.newDetails());
+                    targets.forEach(l -> l.souvenirDetailsChanged(manufacturer, souvenir));
+                }
+            } else if (mutation instanceof Mutation.ChangeSouvenirReleaseDate change) {
+                Souvenir souvenir = keyIndex.souvenir(change.manufacturerName(), change.souvenirName());
+                if (souvenir != null) {
+                    LocalDateTime oldDate = souvenir.getReleaseDate();
+                    souvenir.setReleaseDate(change.newReleaseDate());
+                    targets.forEach(l -> l.souvenirReleaseDateChanged(manufacturer, souvenir, oldDate));
+                }
+            } else if (mutation instanceof Mutation.ChangeSouvenirPrice change) {
+                Souvenir souvenir = keyIndex.souvenir(change.manufacturerName(), change.souvenirName());
+                if (souvenir != null) {
+                    Money oldPrice = souvenir.getPriceMoney();
+                    souvenir.setPrice(change.newPrice());
+                    targets.forEach(l -> l.souvenirPriceChanged(manufacturer, souvenir, oldPrice));
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Applies the mutations of a batch in order. A run of souvenir removals is applied per manufacturer
+     * with a single pass over its souvenir list, instead of one list removal per souvenir.
+     */
+    private void applyBatch(List<Mutation> mutations, List<CatalogListener> targets) {
+        int i = 0;
+        while (i < mutations.size()) {
+            if (!(mutations.get(i) instanceof Mutation.RemoveSouvenir)) {
+                apply(mutations.get(i++), targets);
+                continue;
+            }
+            Map<String, Set<String>> removals = new LinkedHashMap<>();
+            for (; i < mutations.size() && mutations.get(i) instanceof Mutation.RemoveSouvenir remove; i++) {
+                removals.computeIfAbsent(remove.manufacturerName(), name -> new HashSet<>()).add(remove.souvenirName());
+            }
+            removals.forEach((manufacturerName, souvenirNames) -> {
+                Manufacturer manufacturer = manufacturer(manufacturerName);
+                if (manufacturer != null) {
+                    manufacturer.removeSouvenirs(souvenirNames)
+                            .forEach(souvenir -> targets.forEach(l -> l.souvenirRemoved(manufacturer, souvenir)));
+                }
+            });
+        }
+    }
+
+    /**
+     * Looks up a manufacturer through the key index. Called under the lock.
+     *
+     * @param manufacturerName The name of the manufacturer.
+     * @return The manufacturer or null if not found.
+     */
+    private Manufacturer manufacturer(String manufacturerName) {
+        return keyIndex.manufacturer(manufacturerName);
+    }
+
+    /**
+     * Copies manufacturers handed out by the service, so that the caller can't change the catalog behind the
+     * journal and the indexes, and doesn't see later changes made under the lock. Called under the lock.
+     *
+     * @param list The manufacturers of the catalog.
+     * @return An unmodifiable list of copies.
+     */
+    private static List<Manufacturer> copyOfManufacturers(List<Manufacturer> list) {
+        return list.stream().map(Manufacturer::new).toList();
+    }
+
+    /**
+     * Copies souvenirs handed out by the service, like {@link #copyOfManufacturers(List)}. Called under the lock.
+     *
+     * @param list The souvenirs of the catalog.
+     * @return An unmodifiable list of copies.
+     */
+    private static List<Souvenir> copyOfSouvenirs(List<Souvenir> list) {
+        return list.stream().map(Souvenir::new).toList();
     }
 
     public void addMoreMockData() {
-        if(!load().isEmpty()) {
+        if(!isEmpty()) {
             System.out.println("Can't insert test data.\nFile should be empty.");
             return;
         }
@@ -108,30 +807,75 @@ public class SouvenirsService {
     }
 
     /**
-     * Checks if a manufacturer with the given name already exists in the list.
+     * Checks if a manufacturer with the given name already exists in the catalog.
      *
-     * @param manufacturers The list of manufacturers to check against.
-     * @param name          The name of the manufacturer to check for uniqueness.
+     * @param name The name of the manufacturer to check for uniqueness.
      * @return true if the name is unique, false otherwise.
      */
-    private boolean isManufacturerNameUnique(List<Manufacturer> manufacturers, String name) {
-        return manufacturers.stream().noneMatch(manufacturer -> manufacturer.getName().equals(name));
+    private boolean isManufacturerNameUnique(String name) {
+        return manufacturer(name) == null;
     }
 
     /**
      * Adds a new manufacturer to the existing list of manufacturers and saves the updated list,
-     * if a manufacturer with the same name does not already exist.
+     * if a manufacturer with the same name does not already exist. Before the catalog is loaded, a name
+     * the checkpoint's name filters prove new is journaled without loading the catalog.
      *
      * @param newManufacturer The new manufacturer to be added.
      */
     public void addManufacturer(Manufacturer newManufacturer) {
-        List<Manufacturer> manufacturers = load();
-        if (isManufacturerNameUnique(manufacturers, newManufacturer.getName())) {
-            manufacturers.add(newManufacturer);
-            save(manufacturers);
-        } else {
+        if (addManufacturerBeforeLoad(newManufacturer)) {
+            return;
+        }
+        write(() -> {
+            if (isManufacturerNameUnique(newManufacturer.getName())) {
+                return record(new Mutation.AddManufacturer(new Manufacturer(newManufacturer)));
+            }
             System.out.println("Manufacturer with the same name already exists: " + newManufacturer.getName());
+            return NOTHING_RECORDED;
+        });
+    }
+
+    /**
+     * Adds a manufacturer without loading the catalog, if the name filters of the checkpoint prove that the
+     * name is new. The mutation is journaled directly and replayed once the catalog is loaded, like any other
+     * journal record. Only used before the catalog is loaded and while no replica follows the journal.
+     *
+     * @param newManufacturer The new manufacturer.
+     * @return true if the manufacturer was added; false if the regular path has to decide.
+     */
+    private boolean addManufacturerBeforeLoad(Manufacturer newManufacturer) {
+        if (manufacturers != null || isReplica()) {
+            return false;
+        }
+        Mutation mutation = new Mutation.AddManufacturer(new Manufacturer(newManufacturer));
+        Journal journal = dataManager.getJournal();
+        long sequence;
+        lock.writeLock().lock();
+        try {
+            if (manufacturers != null || !journalListeners.isEmpty()) {
+                return false;
+            }
+            if (storedNames == null) {
+                DataManager.Header header = dataManager.readHeader();
+                if (header == null) {
+                    return false;
+                }
+                journal.recover(header.sequence());
+                storedNames = dataManager.loadNameFilter();
+            }
+            if (storedNames.mightContainManufacturer(newManufacturer.getName())) {
+                return false;
+            }
+            sequence = journal.append(mutation);
+            storedNames.add(new Journal.Entry(sequence, mutation));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't recover journal", e);
+        } finally {
+            lock.writeLock().unlock();
         }
+        journal.sync(sequence);
+        return true;
     }
 
     /**
@@ -142,72 +886,62 @@ public class SouvenirsService {
      * @return true if the souvenir is unique, false otherwise.
      */
     private boolean isSouvenirUnique(Manufacturer manufacturer, Souvenir newSouvenir) {
-        return manufacturer.getSouvenirs().stream()
-                .noneMatch(souvenir -> souvenir.getName().equals(newSouvenir.getName()));
+        return !manufacturer.containsSouvenir(newSouvenir.getName());
     }
 
     public void addSouvenir(String manufacturerName, Souvenir newSouvenir) {
-        List<Manufacturer> manufacturers = load();
-
-        Optional<Manufacturer> manufacturerOpt = manufacturers.stream()
-                .filter(m -> m.getName().equals(manufacturerName))
-                .findFirst();
+        write(() -> {
+            Manufacturer manufacturer = manufacturer(manufacturerName);
 
-        if (manufacturerOpt.isEmpty()) {
-            System.out.println("Manufacturer not found: " + manufacturerName);
-            return;
-        }
+            if (manufacturer == null) {
+                System.out.println("Manufacturer not found: " + manufacturerName);
+                return NOTHING_RECORDED;
+            }
 
-        manufacturerOpt.ifPresent(m -> {
-            if (isSouvenirUnique(m, newSouvenir)) {
-                m.addSouvenir(newSouvenir);
-                save(manufacturers);
+            if (isSouvenirUnique(manufacturer, newSouvenir)) {
+                long sequence = record(new Mutation.AddSouvenir(manufacturerName, new Souvenir(newSouvenir)));
                 System.out.println("Souvenir added to Manufacturer '" + manufacturerName + "': " + newSouvenir.getName());
-            } else {
-                System.out.println("Manufacturer '" + manufacturerName + "' already has the same souvenir: " + newSouvenir.getName());
+                return sequence;
             }
+            System.out.println("Manufacturer '" + manufacturerName + "' already has the same souvenir: " + newSouvenir.getName());
+            return NOTHING_RECORDED;
         });
     }
 
     public void addAllSouvenirs(String manufacturerName, List<Souvenir> newSouvenirList) {
-        List<Manufacturer> manufacturers = load();
-
-        Optional<Manufacturer> manufacturerOpt = manufacturers.stream()
-                .filter(m -> m.getName().equals(manufacturerName))
-                .findFirst();
+        write(() -> {
+            Manufacturer manufacturer = manufacturer(manufacturerName);
 
-        if (manufacturerOpt.isEmpty()) {
-            System.out.println("Manufacturer not found: " + manufacturerName);
-            return;
-        }
+            if (manufacturer == null) {
+                System.out.println("Manufacturer not found: " + manufacturerName);
+                return NOTHING_RECORDED;
+            }
 
-        manufacturerOpt.ifPresent(manufacturer -> {
+            long sequence = NOTHING_RECORDED;
             for (Souvenir newSouvenir : newSouvenirList) {
                 if (isSouvenirUnique(manufacturer, newSouvenir)) {
-                    manufacturer.addSouvenir(newSouvenir);
+                    sequence = record(new Mutation.AddSouvenir(manufacturerName, new Souvenir(newSouvenir)));
                     System.out.println("Souvenir added to Manufacturer '" + manufacturerName + "': " + newSouvenir.getName());
                 } else {
                     System.out.println("Manufacturer '" + manufacturerName + "' already has the same souvenir: " + newSouvenir.getName());
-                    return;
+                    break;
                 }
             }
+            return sequence;
         });
-
-        save(manufacturers);
     }
 
     /**
      * Finds and returns a Manufacturer with the specified name from the loaded list of manufacturers.
      *
      * @param manufacturerName The name of the manufacturer to be found.
-     * @return The found Manufacturer or null if not found.
+     * @return A copy of the found Manufacturer or null if not found.
      */
     public Manufacturer findManufacturerByName(String manufacturerName) {
-        List<Manufacturer> manufacturers = load();
-        return manufacturers.stream()
-                .filter(m -> m.getName().equals(manufacturerName))
-                .findFirst()
-                .orElse(null);
+        return read(() -> {
+            Manufacturer manufacturer = manufacturer(manufacturerName);
+            return manufacturer != null ? new Manufacturer(manufacturer) : null;
+        });
     }
 
     /**
@@ -215,32 +949,26 @@ public class SouvenirsService {
      *
      * @param manufacturerName The name of the manufacturer.
      * @param souvenirName     The name of the souvenir to be found.
-     * @return The found Souvenir or null if not found.
+     * @return A copy of the found Souvenir or null if not found.
      */
     public Souvenir findSouvenirByManufacturerAndName(String manufacturerName, String souvenirName) {
-        List<Manufacturer> manufacturers = load();
-
-        Optional<Souvenir> souvenirOpt = manufacturers.stream()
-                .filter(m -> m.getName().equals(manufacturerName))
-                .flatMap(m -> m.getSouvenirs().stream())
-                .filter(s -> s.getName().equals(souvenirName))
-                .findFirst();
-
-        return souvenirOpt.orElse(null);
+        return read(() -> {
+            Souvenir souvenir = keyIndex.souvenir(manufacturerName, souvenirName);
+            return souvenir != null ? new Souvenir(souvenir) : null;
+        });
     }
 
     /**
      * Finds and returns the list of souvenirs produced by the manufacturer with the specified name.
      *
      * @param existingManufacturerName The name of the manufacturer to search for.
-     * @return The list of souvenirs produced by the specified manufacturer.
+     * @return An unmodifiable list of copies of the souvenirs produced by the specified manufacturer.
      */
     public List<Souvenir> findSouvenirsByManufacturerName(String existingManufacturerName) {
-        List<Manufacturer> manufacturers = load();
-        Optional<Manufacturer> foundManufacturer = manufacturers.stream()
-                .filter(m -> m.getName().equals(existingManufacturerName))
-                .findFirst();
-        return foundManufacturer.isPresent() ? foundManufacturer.get().getSouvenirs() : new ArrayList<>();
+        return read(() -> {
+            Manufacturer foundManufacturer = manufacturer(existingManufacturerName);
+            return foundManufacturer != null ? copyOfSouvenirs(foundManufacturer.getSouvenirs()) : List.of();
+        });
     }
 
     /**
@@ -250,12 +978,7 @@ public class SouvenirsService {
      * @return The list of souvenirs produced by manufacturers from the specified country.
      */
     public List<Souvenir> findSouvenirsByManufacturerCountry(String existingManufacturerCountry) {
-        List<Manufacturer> manufacturers = load();
-
-        return manufacturers.stream()
-                .filter(manufacturer -> manufacturer.getCountry().equalsIgnoreCase(existingManufacturerCountry))
-                .flatMap(manufacturer -> manufacturer.getSouvenirs().stream())
-                .toList();
+        return findSouvenirsInCatalogOrder(SouvenirQuery.create().country(existingManufacturerCountry));
     }
 
     /**
@@ -265,11 +988,17 @@ public class SouvenirsService {
      * @return The list of souvenirs with prices lower than the specified limit.
      */
     public List<Souvenir> findSouvenirsByPriceLowerThan(double priceLimit) {
-        List<Manufacturer> manufacturers = load();
-        return manufacturers.stream()
-                .flatMap(manufacturer -> manufacturer.getSouvenirs().stream())
-                .filter(souvenir -> souvenir.getPrice() < priceLimit)
-                .toList();
+        return findSouvenirsInCatalogOrder(SouvenirQuery.create().priceBelow(priceLimit));
+    }
+
+    /**
+     * Finds and returns the list of souvenirs priced in the limit's currency and lower than the limit.
+     *
+     * @param priceLimit The exact price limit to filter souvenirs.
+     * @return The list of souvenirs with prices lower than the specified limit.
+     */
+    public List<Souvenir> findSouvenirsByPriceLowerThan(Money priceLimit) {
+        return findSouvenirsInCatalogOrder(SouvenirQuery.create().priceBelow(priceLimit));
     }
 
     /**
@@ -279,23 +1008,372 @@ public class SouvenirsService {
      * @return The list of manufacturers with souvenirs having prices lower than the specified limit.
      */
     public List<Manufacturer> findManufacturersByPriceLowerThan(double priceLimit) {
-        List<Manufacturer> manufacturers = load();
-        return manufacturers.stream()
-                .filter(manufacturer -> manufacturer.getSouvenirs().stream().anyMatch(souvenir -> souvenir.getPrice() < priceLimit))
-                .toList();
+        return findManufacturersInCatalogOrder(SouvenirQuery.create().priceBelow(priceLimit));
+    }
+
+    /**
+     * Finds and returns the list of manufacturers with souvenirs priced in the limit's currency and lower than the limit.
+     *
+     * @param priceLimit The exact price limit to filter manufacturers.
+     * @return The list of manufacturers with souvenirs having prices lower than the specified limit.
+     */
+    public List<Manufacturer> findManufacturersByPriceLowerThan(Money priceLimit) {
+        return findManufacturersInCatalogOrder(SouvenirQuery.create().priceBelow(priceLimit));
+    }
+
+    /**
+     * Finds and returns the souvenirs matching every criterion of the query.
+     * The most selective indexed criterion drives the lookup; the rest are applied as filters.
+     *
+     * @param query The query to execute.
+     * @return An unmodifiable list of copies of the matching souvenirs, in no particular order.
+     */
+    public List<Souvenir> findSouvenirs(SouvenirQuery query) {
+        if (excludedByStoredStatistics(query)) {
+            return List.of();
+        }
+        return read(() -> queryPlanner.plan(query).execute().map(Souvenir::new).toList());
+    }
+
+    /**
+     * Finds and returns the manufacturers having at least one souvenir that matches the query.
+     *
+     * @param query The query to execute.
+     * @return An unmodifiable list of copies of the matching manufacturers, without duplicates.
+     */
+    public List<Manufacturer> findManufacturers(SouvenirQuery query) {
+        if (excludedByStoredStatistics(query)) {
+            return List.of();
+        }
+        return read(() -> queryPlanner.plan(query).executeManufacturers().map(Manufacturer::new).toList());
+    }
+
+    /**
+     * Runs a query like {@link #findSouvenirs(SouvenirQuery)}, but returns the matches in catalog order:
+     * by manufacturer, then in the order each manufacturer lists them. Matches from an index are sorted
+     * by their catalog ordinals, so the cost depends on the number of matches, not on the catalog size.
+     *
+     * @param query The query to execute.
+     * @return The list of matching souvenirs, in catalog order.
+     */
+    private List<Souvenir> findSouvenirsInCatalogOrder(SouvenirQuery query) {
+        if (excludedByStoredStatistics(query)) {
+            return List.of();
+        }
+        return read(() -> {
+            QueryPlanner.QueryPlan plan = queryPlanner.plan(query);
+            List<Souvenir> matches = plan.execute().toList();
+            if (plan.inCatalogOrder() || matches.size() < 2) {
+                return copyOfSouvenirs(matches);
+            }
+            List<Souvenir> ordered = new ArrayList<>(matches);
+            ordered.sort(attributeIndex.souvenirCatalogOrder());
+            return copyOfSouvenirs(ordered);
+        });
+    }
+
+    /**
+     * Runs a query like {@link #findManufacturers(SouvenirQuery)}, but returns the matches in catalog order.
+     *
+     * @param query The query to execute.
+     * @return The list of matching manufacturers, in catalog order.
+     */
+    private List<Manufacturer> findManufacturersInCatalogOrder(SouvenirQuery query) {
+        if (excludedByStoredStatistics(query)) {
+            return List.of();
+        }
+        return read(() -> {
+            QueryPlanner.QueryPlan plan = queryPlanner.plan(query);
+            List<Manufacturer> matches = plan.executeManufacturers().toList();
+            if (plan.inCatalogOrder() || matches.size() < 2) {
+                return copyOfManufacturers(matches);
+            }
+            List<Manufacturer> ordered = new ArrayList<>(matches);
+            ordered.sort(attributeIndex.manufacturerCatalogOrder());
+            return copyOfManufacturers(ordered);
+        });
+    }
+
+    /**
+     * Finds the k cheapest souvenirs.
+     *
+     * @param k The maximum number of souvenirs to return.
+     * @return Up to k souvenirs, cheapest first.
+     */
+    public List<Souvenir> findCheapestSouvenirs(int k) {
+        return findCheapestSouvenirs(SouvenirQuery.create(), k);
+    }
+
+    /**
+     * Finds the k cheapest souvenirs matching the query, e.g. the cheapest ones from a country.
+     * Unscoped and price-scoped queries walk the price index and stop after k matches; other scopes
+     * keep a bounded heap over the scope, costing O(n log k) for n souvenirs in scope.
+     *
+     * @param scope The query restricting the candidates.
+     * @param k     The maximum number of souvenirs to return.
+     * @return Up to k souvenirs, cheapest first.
+     */
+    public List<Souvenir> findCheapestSouvenirs(SouvenirQuery scope, int k) {
+        return read(() -> {
+            QueryPlanner.QueryPlan plan = queryPlanner.plan(scope);
+            return copyOfSouvenirs(switch (plan.accessKind()) {
+                case FULL_SCAN -> TopKSelection.fromOrderedIndex(attributeIndex.byPrice().entrySet(), plan::matches, k);
+                case PRICE -> TopKSelection.fromOrderedIndex(attributeIndex.cheaperThan(scope.getPriceBelow()).entrySet(), plan::matches, k);
+                default -> TopKSelection.fromStream(plan.execute(), CHEAPEST_FIRST, k);
+            });
+        });
+    }
+
+    /**
+     * Finds the k most expensive souvenirs.
+     *
+     * @param k The maximum number of souvenirs to return.
+     * @return Up to k souvenirs, most expensive first.
+     */
+    public List<Souvenir> findMostExpensiveSouvenirs(int k) {
+        return findMostExpensiveSouvenirs(SouvenirQuery.create(), k);
+    }
+
+    /**
+     * Finds the k most expensive souvenirs matching the query.
+     *
+     * @param scope The query restricting the candidates.
+     * @param k     The maximum number of souvenirs to return.
+     * @return Up to k souvenirs, most expensive first.
+     */
+    public List<Souvenir> findMostExpensiveSouvenirs(SouvenirQuery scope, int k) {
+        return read(() -> {
+            QueryPlanner.QueryPlan plan = queryPlanner.plan(scope);
+            return copyOfSouvenirs(switch (plan.accessKind()) {
+                case FULL_SCAN -> TopKSelection.fromOrderedIndex(attributeIndex.byPrice().descendingMap().entrySet(), plan::matches, k);
+                case PRICE -> TopKSelection.fromOrderedIndex(attributeIndex.cheaperThan(scope.getPriceBelow()).descendingMap().entrySet(), plan::matches, k);
+                default -> TopKSelection.fromStream(plan.execute(), MOST_EXPENSIVE_FIRST, k);
+            });
+        });
+    }
+
+    /**
+     * Finds the k most recently released souvenirs.
+     *
+     * @param k The maximum number of souvenirs to return.
+     * @return Up to k souvenirs, newest first.
+     */
+    public List<Souvenir> findNewestSouvenirs(int k) {
+        return findNewestSouvenirs(SouvenirQuery.create(), k);
+    }
+
+    /**
+     * Finds the k most recently released souvenirs matching the query.
+     * Souvenirs without a release date are never returned.
+     *
+     * @param scope The query restricting the candidates.
+     * @param k     The maximum number of souvenirs to return.
+     * @return Up to k souvenirs, newest first.
+     */
+    public List<Souvenir> findNewestSouvenirs(SouvenirQuery scope, int k) {
+        return read(() -> {
+            QueryPlanner.QueryPlan plan = queryPlanner.plan(scope);
+            return copyOfSouvenirs(switch (plan.accessKind()) {
+                case FULL_SCAN -> TopKSelection.fromOrderedIndex(attributeIndex.byReleaseDate().descendingMap().entrySet(), plan::matches, k);
+                case YEAR -> {
+                    int year = scope.getReleaseYear();
+                    yield TopKSelection.fromOrderedIndex(attributeIndex.byReleaseDate()
+                            .subMap(LocalDateTime.of(year, 1, 1, 0, 0), true, LocalDateTime.of(year + 1, 1, 1, 0, 0), false)
+                            .descendingMap().entrySet(), plan::matches, k);
+                }
+                default -> TopKSelection.fromStream(plan.execute().filter(s -> s.getReleaseDate() != null), NEWEST_FIRST, k);
+            });
+        });
+    }
+
+    /**
+     * Describes how the query would be executed: the chosen access path, the residual filters
+     * and the estimated row count of every candidate access path.
+     *
+     * @param query The query to explain.
+     * @return The human-readable plan.
+     */
+    public String explain(SouvenirQuery query) {
+        return read(() -> queryPlanner.plan(query).explain());
+    }
+
+    /**
+     * Searches manufacturer and souvenir names containing the text, ignoring case.
+     * Exact matches rank first, then names starting with the text, then names with a word starting
+     * with it, then any other names containing it; shorter names rank first within each group.
+     *
+     * @param text  The text to search for.
+     * @param limit The maximum number of matches to return.
+     * @return Up to limit matches, best first.
+     */
+    public List<NameMatch> searchNames(String text, int limit) {
+        awaitIndexes();
+        return read(() -> nameSearchIndex.search(text, limit, m -> true));
+    }
+
+    /**
+     * Searches souvenir names containing the text, ignoring case, ranked as in {@link #searchNames(String, int)}.
+     *
+     * @param text  The text to search for.
+     * @param limit The maximum number of matches to return.
+     * @return Up to limit souvenir matches, best first.
+     */
+    public List<NameMatch> searchSouvenirNames(String text, int limit) {
+        awaitIndexes();
+        return read(() -> nameSearchIndex.search(text, limit, m -> !m.isManufacturer()));
+    }
+
+    /**
+     * Searches manufacturer names containing the text, ignoring case, ranked as in {@link #searchNames(String, int)}.
+     *
+     * @param text  The text to search for.
+     * @param limit The maximum number of matches to return.
+     * @return Up to limit manufacturer matches, best first.
+     */
+    public List<NameMatch> searchManufacturerNames(String text, int limit) {
+        awaitIndexes();
+        return read(() -> nameSearchIndex.search(text, limit, NameMatch::isManufacturer));
+    }
+
+    /**
+     * Gets the price statistics of the souvenirs produced by the specified manufacturer.
+     *
+     * @param manufacturerName The name of the manufacturer.
+     * @return The statistics, empty if the manufacturer is not found or has no souvenirs.
+     */
+    public PriceStatistics getManufacturerStatistics(String manufacturerName) {
+        awaitIndexes();
+        return read(() -> aggregates.manufacturer(manufacturer(manufacturerName)));
+    }
+
+    /**
+     * Gets the price statistics of the souvenirs produced by manufacturers from the specified country.
+     *
+     * @param country The country of the manufacturers, ignoring case.
+     * @return The statistics, empty if there are no such souvenirs.
+     */
+    public PriceStatistics getCountryStatistics(String country) {
+        awaitIndexes();
+        return read(() -> aggregates.country(country));
+    }
+
+    /**
+     * Gets the price statistics of the souvenirs released in the specified year.
+     *
+     * @param year The release year.
+     * @return The statistics, empty if there are no such souvenirs.
+     */
+    public PriceStatistics getYearStatistics(int year) {
+        awaitIndexes();
+        return read(() -> aggregates.year(year));
+    }
+
+    /**
+     * Gets the price statistics of every manufacturer.
+     *
+     * @return The statistics keyed by manufacturer name.
+     */
+    public Map<String, PriceStatistics> getStatisticsByManufacturer() {
+        awaitIndexes();
+        return read(() -> aggregates.allManufacturers());
+    }
+
+    /**
+     * Gets the price statistics of every country that has souvenirs.
+     *
+     * @return The statistics keyed by country.
+     */
+    public Map<String, PriceStatistics> getStatisticsByCountry() {
+        awaitIndexes();
+        return read(() -> aggregates.allCountries());
+    }
+
+    /**
+     * Gets the price statistics of every release year that has souvenirs.
+     *
+     * @return The statistics keyed by year, in ascending order.
+     */
+    public Map<Integer, PriceStatistics> getStatisticsByYear() {
+        awaitIndexes();
+        return read(() -> aggregates.allYears());
+    }
+
+    /**
+     * Opens a cursor over all manufacturers, in catalog order.
+     *
+     * @return The cursor.
+     */
+    public CatalogCursor<ManufacturerSnapshot> cursorAllManufacturers() {
+        return cursorManufacturers(m -> true);
+    }
+
+    /**
+     * Opens a cursor over the manufacturers having at least one souvenir cheaper than the specified limit.
+     *
+     * @param priceLimit The price limit, in the {@link Money#DEFAULT_CURRENCY}.
+     * @return The cursor.
+     */
+    public CatalogCursor<ManufacturerSnapshot> cursorManufacturersByPriceLowerThan(double priceLimit) {
+        Money limit = Money.of(priceLimit);
+        return cursorManufacturers(m -> m.getSouvenirs().stream().anyMatch(s -> s.getPriceMoney().isLessThan(limit)));
+    }
+
+    /**
+     * Opens a cursor over the souvenirs of the manufacturer with the specified name.
+     *
+     * @param manufacturerName The name of the manufacturer.
+     * @return The cursor; empty if there is no such manufacturer.
+     */
+    public CatalogCursor<SouvenirSnapshot> cursorSouvenirsByManufacturerName(String manufacturerName) {
+        return new CatalogCursor<>(snapshot().getSouvenirs(manufacturerName).iterator());
+    }
+
+    /**
+     * Opens a cursor over the souvenirs of the manufacturers from the specified country.
+     *
+     * @param country The country, matched ignoring case.
+     * @return The cursor.
+     */
+    public CatalogCursor<SouvenirSnapshot> cursorSouvenirsByManufacturerCountry(String country) {
+        return cursorSouvenirs(m -> m.getCountry().equalsIgnoreCase(country), s -> true);
+    }
+
+    /**
+     * Opens a cursor over the souvenirs released in the specified year.
+     *
+     * @param year The release year.
+     * @return The cursor.
+     */
+    public CatalogCursor<SouvenirSnapshot> cursorSouvenirsByReleaseDate(int year) {
+        return cursorSouvenirs(m -> true, s -> s.getReleaseDate() != null && s.getReleaseDate().getYear() == year);
+    }
+
+    private CatalogCursor<ManufacturerSnapshot> cursorManufacturers(Predicate<ManufacturerSnapshot> condition) {
+        return new CatalogCursor<>(snapshot().getManufacturers().stream().filter(condition).iterator());
+    }
+
+    private CatalogCursor<SouvenirSnapshot> cursorSouvenirs(Predicate<ManufacturerSnapshot> manufacturerCondition,
+                                                            Predicate<SouvenirSnapshot> souvenirCondition) {
+        return new CatalogCursor<>(snapshot().getManufacturers().stream()
+                .filter(manufacturerCondition)
+                .flatMap(m -> m.getSouvenirs().stream())
+                .filter(souvenirCondition)
+                .iterator());
     }
 
     /**
      * Displays information about all souvenirs and their manufacturers.
      */
     public void displayAllSouvenirsAndManufacturers() {
-        List<Manufacturer> manufacturers = load();
-        if(manufacturers.isEmpty()) {
-            System.out.println("\n-------------\n(Empty)");
-        }
-        manufacturers.forEach(m -> {
-            System.out.println("\n-------------\n" + m.toString() + "\nSouvenir list:");
-            m.getSouvenirs().forEach(s -> System.out.println("\t" + s));
+        read(() -> {
+            if(manufacturers.isEmpty()) {
+                System.out.println("\n-------------\n(Empty)");
+            }
+            manufacturers.forEach(m -> {
+                System.out.println("\n-------------\n" + m.toString() + "\nSouvenir list:");
+                m.getSouvenirs().forEach(s -> System.out.println("\t" + s));
+            });
+            return null;
         });
     }
 
@@ -307,12 +1385,7 @@ public class SouvenirsService {
      * @return The list of manufacturers that produced the specified souvenir in the given year.
      */
     public List<Manufacturer> findManufacturersBySouvenirAndReleaseDate(String souvenirName, int year) {
-        List<Manufacturer> manufacturers = load();
-        return manufacturers.stream()
-                .filter(m -> m.getSouvenirs().stream()
-                        .anyMatch(s -> s.getName().equals(souvenirName) &&
-                                s.getReleaseDate().getYear() == year))
-                .collect(Collectors.toList());
+        return findManufacturersInCatalogOrder(SouvenirQuery.create().named(souvenirName).releasedIn(year));
     }
 
     /**
@@ -322,11 +1395,7 @@ public class SouvenirsService {
      * @return The list of souvenirs released in the specified year.
      */
     public List<Souvenir> findSouvenirsByReleaseDate(int year) {
-        List<Manufacturer> manufacturers = load();
-        return manufacturers.stream()
-                .flatMap(manufacturer -> manufacturer.getSouvenirs().stream())
-                .filter(souvenir -> souvenir.getReleaseDate().getYear() == year)
-                .collect(Collectors.toList());
+        return findSouvenirsInCatalogOrder(SouvenirQuery.create().releasedIn(year));
     }
 
     /**
@@ -335,9 +1404,9 @@ public class SouvenirsService {
      * @param manufacturerNameToDelete The name of the manufacturer to be removed.
      */
     public void removeManufacturerAndSouvenirs(String manufacturerNameToDelete) {
-        List<Manufacturer> manufacturers = load();
-        manufacturers = manufacturers.stream().filter(m -> !m.getName().equals(manufacturerNameToDelete)).collect(Collectors.toList());
-        save(manufacturers);
+        write(() -> manufacturer(manufacturerNameToDelete) == null
+                ? NOTHING_RECORDED
+                : record(new Mutation.RemoveManufacturer(manufacturerNameToDelete)));
     }
 
     /**
@@ -347,18 +1416,16 @@ public class SouvenirsService {
      * @param newManufacturerName The new name for the manufacturer.
      */
     public void updateManufacturerName(String oldManufacturerName, String newManufacturerName) {
-        List<Manufacturer> manufacturers = load();
-        manufacturers.stream()
-                .filter(m -> m.getName().equals(oldManufacturerName))
-                .findFirst()
-                .ifPresent(m -> {
-                    try {
-                        m.setName(newManufacturerName);
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
-                });
-        save(manufacturers);
+        write(() -> {
+            if (manufacturer(oldManufacturerName) == null) {
+                return NOTHING_RECORDED;
+            }
+            if (!oldManufacturerName.equals(newManufacturerName) && !isManufacturerNameUnique(newManufacturerName)) {
+                System.out.println("Manufacturer with the same name already exists: " + newManufacturerName);
+                return NOTHING_RECORDED;
+            }
+            return recordIfValid(new Mutation.RenameManufacturer(oldManufacturerName, newManufacturerName));
+        });
     }
 
     /**
@@ -368,47 +1435,34 @@ public class SouvenirsService {
      * @param newManufacturerCountry The new country for the manufacturer.
      */
     public void updateManufacturerCountry(String manufacturerName, String newManufacturerCountry) {
-        List<Manufacturer> manufacturers = load();
-        manufacturers.forEach(manufacturer -> {
-            if (manufacturer.getName().equals(manufacturerName)) {
-                try {
-                    manufacturer.setCountry(newManufacturerCountry);
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-            }
-        });
-        save(manufacturers);
+        write(() -> manufacturer(manufacturerName) == null
+                ? NOTHING_RECORDED
+                : recordIfValid(new Mutation.ChangeManufacturerCountry(manufacturerName, newManufacturerCountry)));
     }
 
     public void updateSouvenirName(String manufacturerName, String oldSouvenirName, String newSouvenirName) {
-        List<Manufacturer> manufacturers = load();
-
-        manufacturers.forEach(manufacturer -> {
-            if (manufacturer.getName().equals(manufacturerName)) {
-                boolean isSouvenirNameUnique = manufacturer.getSouvenirs().stream()
-                        .filter(s -> !s.getName().equals(oldSouvenirName))
-                        .noneMatch(s -> s.getName().equals(newSouvenirName));
-
-                if (isSouvenirNameUnique) {
-                    manufacturer.getSouvenirs().forEach(souvenir -> {
-                        if (souvenir.getName().equals(oldSouvenirName)) {
-                            try {
-                                souvenir.setName(newSouvenirName);
-                            } catch (Exception e) {
-                                throw new RuntimeException(e);
-                            }
-                            System.out.println("Souvenir name updated for Manufacturer '" + manufacturerName +
-                                    "', Souvenir '" + oldSouvenirName + "' to '" + newSouvenirName + "':\n" + souvenir);
-                        }
-                    });
-                } else {
-                    System.out.println("Cannot update to the same name. Souvenir with name '" + newSouvenirName + "' already exists.");
+        write(() -> {
+            Manufacturer manufacturer = manufacturer(manufacturerName);
+            Souvenir souvenir = manufacturer == null ? null : manufacturer.getSouvenir(oldSouvenirName);
+            if (souvenir == null) {
+                return NOTHING_RECORDED;
+            }
+
+            boolean isSouvenirNameUnique = oldSouvenirName.equals(newSouvenirName)
+                    || !manufacturer.containsSouvenir(newSouvenirName);
+
+            if (isSouvenirNameUnique) {
+                long sequence = recordIfValid(new Mutation.RenameSouvenir(manufacturerName, oldSouvenirName, newSouvenirName));
+                if (sequence == NOTHING_RECORDED) {
+                    return NOTHING_RECORDED;
                 }
+                System.out.println("Souvenir name updated for Manufacturer '" + manufacturerName +
+                        "', Souvenir '" + oldSouvenirName + "' to '" + newSouvenirName + "':\n" + souvenir);
+                return sequence;
             }
+            System.out.println("Cannot update to the same name. Souvenir with name '" + newSouvenirName + "' already exists.");
+            return NOTHING_RECORDED;
         });
-
-        save(manufacturers);
     }
 
     /**
@@ -419,21 +1473,9 @@ public class SouvenirsService {
      * @param newManufacturerDetails The new manufacturer details for the souvenir.
      */
     public void updateSouvenirManufacturerDetails(String manufacturerName, String souvenirName, String newManufacturerDetails) {
-        List<Manufacturer> manufacturers = load();
-        manufacturers.forEach(m -> {
-            if (m.getName().equals(manufacturerName)) {
-                m.getSouvenirs().forEach(s -> {
-                    if (s.getName().equals(souvenirName)) {
-                        try {
-                            s.setManufacturerDetails(newManufacturerDetails);
-                        } catch (Exception e) {
-                            throw new RuntimeException(e);
-                        }
-                    }
-                });
-            }
-        });
-        save(manufacturers);
+        write(() -> keyIndex.souvenir(manufacturerName, souvenirName) == null
+                ? NOTHING_RECORDED
+                : recordIfValid(new Mutation.ChangeSouvenirDetails(manufacturerName, souvenirName, newManufacturerDetails)));
     }
 
     /**
@@ -444,17 +1486,9 @@ public class SouvenirsService {
      * @param newDate          The new release date for the souvenir.
      */
     public void updateSouvenirReleaseDate(String manufacturerName, String souvenirName, LocalDateTime newDate) {
-        List<Manufacturer> manufacturers = load();
-        manufacturers.forEach(m -> {
-            if (m.getName().equals(manufacturerName)) {
-                m.getSouvenirs().forEach(s -> {
-                    if (s.getName().equals(souvenirName)) {
-                        s.setReleaseDate(newDate);
-                    }
-                });
-            }
-        });
-        save(manufacturers);
+        write(() -> keyIndex.souvenir(manufacturerName, souvenirName) == null
+                ? NOTHING_RECORDED
+                : record(new Mutation.ChangeSouvenirReleaseDate(manufacturerName, souvenirName, newDate)));
     }
 
     /**
@@ -465,17 +1499,12 @@ public class SouvenirsService {
      * @param newDate          The new release date for the souvenir as a string in the format "dd.MM.yyyy".
      */
     public void updateSouvenirReleaseDate(String manufacturerName, String souvenirName, String newDate) {
-        List<Manufacturer> manufacturers = load();
-        manufacturers.forEach(m -> {
-            if (m.getName().equals(manufacturerName)) {
-                m.getSouvenirs().forEach(s -> {
-                    if (s.getName().equals(souvenirName)) {
-                        s.setReleaseDate(newDate);
-                    }
-                });
-            }
-        });
-        save(manufacturers);
+        long epochDay = ReleaseDates.parseEpochDay(newDate);
+        if (epochDay == ReleaseDates.INVALID) {
+            System.out.println("Can't set release date. Wrong format. Should be `dd.MM.yyyy`");
+            return;
+        }
+        updateSouvenirReleaseDate(manufacturerName, souvenirName, ReleaseDates.toDateTime(epochDay));
     }
 
     /**
@@ -486,20 +1515,137 @@ public class SouvenirsService {
      * @param newPrice         The new price for the souvenir.
      */
     public void updateSouvenirPrice(String manufacturerName, String souvenirName, double newPrice) {
-        List<Manufacturer> manufacturers = load();
-        manufacturers.forEach(m -> {
-            if (m.getName().equals(manufacturerName)) {
-                m.getSouvenirs().forEach(s -> {
-                    if (s.getName().equals(souvenirName)) {
-                        try {
-                            s.setPrice(newPrice);
-                        } catch (Exception e) {
-                            throw new RuntimeException(e);
-                        }
-                    }
-                });
-            }
+        write(() -> {
+            Souvenir souvenir = keyIndex.souvenir(manufacturerName, souvenirName);
+            return souvenir == null
+                    ? NOTHING_RECORDED
+                    : recordIfValid(new Mutation.ChangeSouvenirPrice(manufacturerName, souvenirName, Money.of(newPrice, souvenir.getCurrency())));
+        });
+    }
+
+    /**
+     * Updates the price of the specified souvenir produced by the specified manufacturer to the new exact price and saves the updated list.
+     *
+     * @param manufacturerName The name of the manufacturer.
+     * @param souvenirName     The name of the souvenir.
+     * @param newPrice         The new price for the souvenir.
+     */
+    public void updateSouvenirPrice(String manufacturerName, String souvenirName, Money newPrice) {
+        write(() -> keyIndex.souvenir(manufacturerName, souvenirName) == null
+                ? NOTHING_RECORDED
+                : recordIfValid(new Mutation.ChangeSouvenirPrice(manufacturerName, souvenirName, newPrice)));
+    }
+
+    /**
+     * Removes every souvenir matching the query, e.g. all souvenirs released in a given year, in one
+     * operation: the matches are found in a single pass over the best index for the query, and all removals
+     * are journaled as one record, so they are persisted by a single sync and recovered all or nothing.
+     *
+     * @param query The souvenirs to remove. Custom predicates may be evaluated in parallel.
+     * @return The number of souvenirs removed.
+     */
+    public int removeSouvenirs(SouvenirQuery query) {
+        int[] removed = new int[1];
+        write(() -> {
+            List<Mutation> removals = new ArrayList<>();
+            matchesByManufacturer(query).forEach((manufacturer, souvenirs) -> souvenirs.forEach(
+                    s -> removals.add(new Mutation.RemoveSouvenir(manufacturer.getName(), s.getName()))));
+            removed[0] = removals.size();
+            return removals.isEmpty() ? NOTHING_RECORDED : record(new Mutation.Batch(removals));
         });
-        save(manufacturers);
+        return removed[0];
+    }
+
+    /**
+     * Removes every souvenir matching a condition, e.g. {@code s -> s.getReleaseDate().getYear() < 2000}.
+     * Works like {@link #removeSouvenirs(SouvenirQuery)}, with a full pass over the catalog.
+     *
+     * @param condition The condition; it may be evaluated in parallel, so it must be free of side effects.
+     * @return The number of souvenirs removed.
+     */
+    public int removeSouvenirsIf(Predicate<Souvenir> condition) {
+        return removeSouvenirs(SouvenirQuery.create().where(condition));
+    }
+
+    /**
+     * Changes the price of every souvenir matching the query in one operation. The new prices are computed
+     * in parallel and checked before anything changes; the changes are journaled as one record, so they are
+     * persisted by a single sync and recovered all or nothing.
+     *
+     * @param query     The souvenirs to reprice, e.g. {@code SouvenirQuery.create().country("France")}.
+     * @param transform Computes the new price from the current one; it must be free of side effects.
+     * @return The number of souvenirs whose price changed.
+     * @throws IllegalArgumentException If the transform yields a negative price; no price is changed then.
+     */
+    public int updateSouvenirPrices(SouvenirQuery query, UnaryOperator<Money> transform) {
+        int[] changed = new int[1];
+        write(() -> {
+            List<Mutation> changes = matchesByManufacturer(query).entrySet().parallelStream()
+                    .flatMap(e -> e.getValue().stream().map(s -> repriced(e.getKey(), s, transform)))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            changed[0] = changes.size();
+            return changes.isEmpty() ? NOTHING_RECORDED : record(new Mutation.Batch(changes));
+        });
+        return changed[0];
+    }
+
+    /**
+     * Changes the price of every souvenir matching the query by a percentage, e.g. 5 for +5% or -10 for a
+     * 10% discount, rounded to the nearest minor unit. See {@link #updateSouvenirPrices(SouvenirQuery, UnaryOperator)}.
+     *
+     * @param query   The souvenirs to reprice.
+     * @param percent The change in percent.
+     * @return The number of souvenirs whose price changed.
+     */
+    public int adjustSouvenirPrices(SouvenirQuery query, double percent) {
+        BigDecimal factor = BigDecimal.ONE.add(BigDecimal.valueOf(percent).movePointLeft(2));
+        return updateSouvenirPrices(query, price -> price.multiply(factor));
+    }
+
+    /**
+     * Computes a new price for a souvenir. Called under the write lock, possibly from several threads.
+     *
+     * @return The price change, or null if the price stays the same.
+     */
+    private static Mutation repriced(Manufacturer manufacturer, Souvenir souvenir, UnaryOperator<Money> transform) {
+        Money oldPrice = souvenir.getPriceMoney();
+        Money newPrice = transform.apply(oldPrice);
+        if (newPrice.getMinorUnits() < 0) {
+            throw new IllegalArgumentException("Souvenir price can't be negative: " + souvenir.getName() + " would cost " + newPrice);
+        }
+        return newPrice.equals(oldPrice) ? null
+                : new Mutation.ChangeSouvenirPrice(manufacturer.getName(), souvenir.getName(), newPrice);
+    }
+
+    /**
+     * Finds the souvenirs matching a query, grouped by manufacturer in catalog order. The query runs through
+     * the planner, in parallel, and the matches are put in order by their catalog ordinals; until the
+     * secondary indexes are built the owners are found by a catalog scan. Called under the write lock.
+     *
+     * @param query The query.
+     * @return The matching souvenirs of each manufacturer that has any.
+     */
+    private Map<Manufacturer, List<Souvenir>> matchesByManufacturer(SouvenirQuery query) {
+        boolean indexed = secondaryIndexes.isReady();
+        Set<Souvenir> matches = queryPlanner.plan(query).execute().parallel()
+                .collect(Collectors.toCollection(() -> Collections.newSetFromMap(new IdentityHashMap<>())));
+        Map<Manufacturer, List<Souvenir>> result = new LinkedHashMap<>();
+        if (matches.isEmpty()) {
+            return result;
+        }
+        if (indexed) {
+            List<Souvenir> ordered = new ArrayList<>(matches);
+            ordered.sort(attributeIndex.souvenirCatalogOrder());
+            ordered.forEach(s -> result.computeIfAbsent(attributeIndex.owner(s), m -> new ArrayList<>()).add(s));
+            return result;
+        }
+        for (Manufacturer manufacturer : manufacturers) {
+            List<Souvenir> souvenirs = manufacturer.getSouvenirs().stream().filter(matches::contains).collect(Collectors.toList());
+            if (!souvenirs.isEmpty()) {
+                result.put(manufacturer, souvenirs);
+            }
+        }
+        return result;
     }
 }
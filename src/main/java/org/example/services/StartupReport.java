@@ -0,0 +1,119 @@
+package org.example.services;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Timings of the phases of {@link SouvenirsService#start()}: reading the checkpoint, replaying the journal
+ * tail, building the key index, and the background build of the secondary indexes.
+ */
+public final class StartupReport {
+
+    private final long snapshotNanos;
+    private final int manufacturers;
+    private final long checkpointSequence;
+    private final long replayNanos;
+    private final int replayedMutations;
+    private final long keyIndexNanos;
+    private final long timeToFirstQueryNanos;
+    private final LongSupplier indexBuildNanos;
+
+    StartupReport(long snapshotNanos, int manufacturers, long checkpointSequence, long replayNanos,
+                  int replayedMutations, long keyIndexNanos, long timeToFirstQueryNanos, LongSupplier indexBuildNanos) {
+        this.snapshotNanos = snapshotNanos;
+        this.manufacturers = manufacturers;
+        this.checkpointSequence = checkpointSequence;
+        this.replayNanos = replayNanos;
+        this.replayedMutations = replayedMutations;
+        this.keyIndexNanos = keyIndexNanos;
+        this.timeToFirstQueryNanos = timeToFirstQueryNanos;
+        this.indexBuildNanos = indexBuildNanos;
+    }
+
+    /**
+     * Gets the time spent mapping and deserializing the checkpoint.
+     *
+     * @return The time in milliseconds.
+     */
+    public double getSnapshotMillis() {
+        return snapshotNanos / 1e6;
+    }
+
+    /**
+     * Gets the number of manufacturers after recovery.
+     *
+     * @return The number of manufacturers.
+     */
+    public int getManufacturers() {
+        return manufacturers;
+    }
+
+    /**
+     * Gets the sequence number covered by the checkpoint.
+     *
+     * @return The checkpoint sequence number.
+     */
+    public long getCheckpointSequence() {
+        return checkpointSequence;
+    }
+
+    /**
+     * Gets the time spent replaying the journal tail.
+     *
+     * @return The time in milliseconds.
+     */
+    public double getReplayMillis() {
+        return replayNanos / 1e6;
+    }
+
+    /**
+     * Gets the number of mutations replayed from the journal.
+     *
+     * @return The number of mutations.
+     */
+    public int getReplayedMutations() {
+        return replayedMutations;
+    }
+
+    /**
+     * Gets the time spent building the key index.
+     *
+     * @return The time in milliseconds.
+     */
+    public double getKeyIndexMillis() {
+        return keyIndexNanos / 1e6;
+    }
+
+    /**
+     * Gets the time from the start of recovery until the service could answer queries.
+     *
+     * @return The time in milliseconds.
+     */
+    public double getTimeToFirstQueryMillis() {
+        return timeToFirstQueryNanos / 1e6;
+    }
+
+    /**
+     * Gets the time the background build of the secondary indexes took.
+     *
+     * @return The time in milliseconds, or -1 while the build is still running.
+     */
+    public double getIndexBuildMillis() {
+        long nanos = indexBuildNanos.getAsLong();
+        return nanos < 0 ? -1 : nanos / 1e6;
+    }
+
+    /**
+     * Returns a string representation of the startup timings.
+     *
+     * @return A string containing every phase and its duration.
+     */
+    @Override
+    public String toString() {
+        double indexBuildMillis = getIndexBuildMillis();
+        return String.format("Startup: checkpoint #%d loaded in %.1f ms (%d manufacturers), %d mutations replayed in %.1f ms, "
+                        + "key index %.1f ms, first query after %.1f ms, secondary indexes %s",
+                checkpointSequence, getSnapshotMillis(), manufacturers, replayedMutations, getReplayMillis(),
+                getKeyIndexMillis(), getTimeToFirstQueryMillis(),
+                indexBuildMillis < 0 ? "still building" : String.format("built in %.1f ms", indexBuildMillis));
+    }
+}
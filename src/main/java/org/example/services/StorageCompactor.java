@@ -0,0 +1,222 @@
+package org.example.services;
+
+import org.example.storage.DataManager;
+import org.example.storage.IoRateLimiter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compacts the storage of a {@link SouvenirsService} on a background thread: it writes the live catalog as
+ * a new checkpoint and drops the journal records the checkpoint covers, reclaiming the space taken by
+ * superseded price updates, renames and removals.
+ * <p>
+ * The catalog is captured as a {@link CatalogSnapshot} under the service read lock, which takes no longer
+ * than a lookup; copying, serializing and writing it happen without the lock, so the service keeps serving
+ * reads and accepting writes meanwhile. Mutations recorded during the compaction stay in the journal, which
+ * is rewritten without the covered records and swapped in atomically, like the data file.
+ * <p>
+ * Compaction writes are paced by an optional {@link IoRateLimiter}, so they don't take the disk away from
+ * foreground work; a foreground save that arrives during a compaction takes precedence over it.
+ */
+public class StorageCompactor implements AutoCloseable {
+
+    /**
+     * The outcome of one compaction.
+     *
+     * @param sequence      The sequence number covered by the new checkpoint.
+     * @param bytesBefore   The size of the data file and journal before the compaction.
+     * @param bytesAfter    The size of the data file and journal after it, including records journaled meanwhile.
+     * @param durationNanos How long the compaction took.
+     */
+    public record Result(long sequence, long bytesBefore, long bytesAfter, long durationNanos) {
+
+        /**
+         * Gets the number of bytes the compaction freed; negative if the catalog grew faster than was reclaimed.
+         *
+         * @return The reclaimed bytes.
+         */
+        public long reclaimedBytes() {
+            return bytesBefore - bytesAfter;
+        }
+
+        /**
+         * Gets how long the compaction took.
+         *
+         * @return The duration in milliseconds.
+         */
+        public double durationMillis() {
+            return durationNanos / 1e6;
+        }
+    }
+
+    private final SouvenirsService service;
+    private final DataManager dataManager;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wakeUp = lock.newCondition();
+    private boolean requested;
+    private boolean closed;
+    private Thread worker;
+
+    private volatile IoRateLimiter limiter;
+    private final AtomicLong compactions = new AtomicLong();
+    private final AtomicLong totalReclaimedBytes = new AtomicLong();
+    private final AtomicLong totalDurationNanos = new AtomicLong();
+    private volatile Result lastResult;
+
+    StorageCompactor(SouvenirsService service, DataManager dataManager) {
+        this.service = service;
+        this.dataManager = dataManager;
+    }
+
+    /**
+     * Limits the rate at which compactions write to disk.
+     *
+     * @param bytesPerSecond The rate, or 0 to write at full speed (the default).
+     */
+    public void setRateLimit(long bytesPerSecond) {
+        if (bytesPerSecond < 0) {
+            throw new IllegalArgumentException("Rate limit must not be negative: " + bytesPerSecond);
+        }
+        this.limiter = bytesPerSecond == 0 ? null : new IoRateLimiter(bytesPerSecond);
+    }
+
+    /**
+     * Gets the rate at which compactions write to disk.
+     *
+     * @return The rate in bytes per second, or 0 if unlimited.
+     */
+    public long getRateLimit() {
+        IoRateLimiter current = limiter;
+        return current == null ? 0 : current.getBytesPerSecond();
+    }
+
+    /**
+     * Asks the background thread to compact, starting it on first use. Requests made while a compaction is
+     * running are merged into one follow-up compaction.
+     */
+    public void request() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            requested = true;
+            if (worker == null) {
+                worker = new Thread(this::run, "souvenir-compactor");
+                worker.setDaemon(true);
+                worker.start();
+            }
+            wakeUp.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Compacts on the calling thread, at the configured rate.
+     *
+     * @return The outcome, or null if the journal held nothing to compact.
+     */
+    public Result compact() {
+        long start = System.nanoTime();
+        long bytesBefore = storageSize();
+        long sequence = service.checkpointInBackground(limiter);
+        if (sequence < 0) {
+            return null;
+        }
+        Result result = new Result(sequence, bytesBefore, storageSize(), System.nanoTime() - start);
+        compactions.incrementAndGet();
+        totalReclaimedBytes.addAndGet(result.reclaimedBytes());
+        totalDurationNanos.addAndGet(result.durationNanos());
+        lastResult = result;
+        return result;
+    }
+
+    /**
+     * Gets the number of compactions completed.
+     *
+     * @return The number of compactions.
+     */
+    public long getCompactions() {
+        return compactions.get();
+    }
+
+    /**
+     * Gets the bytes reclaimed by all compactions so far.
+     *
+     * @return The reclaimed bytes.
+     */
+    public long getTotalReclaimedBytes() {
+        return totalReclaimedBytes.get();
+    }
+
+    /**
+     * Gets the time spent in all compactions so far.
+     *
+     * @return The time in milliseconds.
+     */
+    public double getTotalDurationMillis() {
+        return totalDurationNanos.get() / 1e6;
+    }
+
+    /**
+     * Gets the outcome of the latest compaction.
+     *
+     * @return The outcome, or null if none has completed yet.
+     */
+    public Result getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * Stops the background thread after the compaction in progress, if any.
+     */
+    @Override
+    public void close() {
+        Thread stopping;
+        lock.lock();
+        try {
+            closed = true;
+            stopping = worker;
+            wakeUp.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (stopping != null && stopping != Thread.currentThread()) {
+            try {
+                stopping.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private long storageSize() {
+        return dataManager.getDataFileSize() + dataManager.getJournal().size();
+    }
+
+    private void run() {
+        while (true) {
+            lock.lock();
+            try {
+                while (!requested && !closed) {
+                    wakeUp.awaitUninterruptibly();
+                }
+                if (closed) {
+                    return;
+                }
+                requested = false;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                compact();
+            } catch (RuntimeException e) {
+                System.out.println("Compaction failed: " + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.services;
+
+import org.example.entities.Souvenir;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Selects the first k souvenirs in a given order without sorting, or even materializing, all candidates.
+ */
+final class TopKSelection {
+
+    private TopKSelection() {
+    }
+
+    /**
+     * Walks an index that is already kept in the wanted order and stops after k matches.
+     * Costs O(k) when most souvenirs match the filter.
+     *
+     * @param ordered The index buckets, in the wanted order.
+     * @param filter  The criteria the souvenirs must match.
+     * @param k       The number of souvenirs to select.
+     * @return Up to k souvenirs in index order.
+     */
+    static List<Souvenir> fromOrderedIndex(Iterable<? extends Map.Entry<?, Set<Souvenir>>> ordered, Predicate<Souvenir> filter, int k) {
+        List<Souvenir> result = new ArrayList<>(Math.min(k, 64));
+        if (k <= 0) {
+            return result;
+        }
+        for (Map.Entry<?, Set<Souvenir>> bucket : ordered) {
+            for (Souvenir souvenir : bucket.getValue()) {
+                if (filter.test(souvenir)) {
+                    result.add(souvenir);
+                    if (result.size() == k) {
+                        return result;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Keeps the best k candidates in a bounded heap whose root is the worst of them.
+     * Costs O(n log k) time and O(k) memory for n candidates.
+     *
+     * @param candidates The souvenirs to select from.
+     * @param order      The wanted order; the first k in this order are selected.
+     * @param k          The number of souvenirs to select.
+     * @return Up to k souvenirs, sorted by the given order.
+     */
+    static List<Souvenir> fromStream(Stream<Souvenir> candidates, Comparator<Souvenir> order, int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<Souvenir> heap = new PriorityQueue<>(Math.min(k, 64) + 1, order.reversed());
+        candidates.forEach(souvenir -> {
+            if (heap.size() < k) {
+                heap.add(souvenir);
+            } else if (order.compare(souvenir, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(souvenir);
+            }
+        });
+        List<Souvenir> result = new ArrayList<>(heap);
+        result.sort(order);
+        return result;
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.storage;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A Bloom filter over strings: {@link #mightContain(String)} never misses a key that was {@link #put(String) put},
+ * and reports a key that wasn't with roughly the false-positive rate the filter was sized for.
+ * <p>
+ * The k bit positions of a key are derived from one 64-bit hash by double hashing. Not thread-safe.
+ */
+public final class BloomFilter {
+
+    private final long[] words;
+    private final long bitCount;
+    private final int hashFunctions;
+
+    private BloomFilter(long[] words, int hashFunctions) {
+        this.words = words;
+        this.bitCount = (long) words.length * Long.SIZE;
+        this.hashFunctions = hashFunctions;
+    }
+
+    /**
+     * Creates an empty filter sized for a number of keys and a false-positive rate.
+     *
+     * @param expectedKeys      The number of keys the filter will hold.
+     * @param falsePositiveRate The wanted false-positive rate once it holds them, between 0 and 1.
+     * @return The empty filter.
+     */
+    public static BloomFilter create(long expectedKeys, double falsePositiveRate) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+        long keys = Math.max(1, expectedKeys);
+        double ln2 = Math.log(2);
+        long bits = Math.max(Long.SIZE, (long) Math.ceil(-keys * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        int hashFunctions = Math.max(1, (int) Math.round((double) bits / keys * ln2));
+        return new BloomFilter(new long[Math.toIntExact((bits + Long.SIZE - 1) / Long.SIZE)], hashFunctions);
+    }
+
+    /**
+     * Adds a key.
+     *
+     * @param key The key.
+     */
+    public void put(String key) {
+        long hash = hash(key);
+        long h1 = hash;
+        long h2 = mix(hash) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Checks whether a key may have been added.
+     *
+     * @param key The key.
+     * @return false if the key was certainly never added; true if it probably was.
+     */
+    public boolean mightContain(String key) {
+        long hash = hash(key);
+        long h1 = hash;
+        long h2 = mix(hash) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((words[(int) (bit >>> 6)] & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the size of the filter.
+     *
+     * @return The number of bits.
+     */
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    /**
+     * Gets the number of bits set per key.
+     *
+     * @return The number of hash functions.
+     */
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(hashFunctions);
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    static BloomFilter readFrom(DataInputStream in) throws IOException {
+        int hashFunctions = in.readInt();
+        int length = in.readInt();
+        if (hashFunctions <= 0 || length <= 0) {
+            throw new IOException("Corrupt Bloom filter");
+        }
+        long[] words = new long[length];
+        for (int i = 0; i < length; i++) {
+            words[i] = in.readLong();
+        }
+        return new BloomFilter(words, hashFunctions);
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters of the key, finished with a mixing step.
+     */
+    private static long hash(String key) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ h >>> 33;
+    }
+}
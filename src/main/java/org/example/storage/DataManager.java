@@ -1,34 +1,253 @@
 package org.example.storage;
 
 import org.example.entities.Manufacturer;
+import org.example.entities.Souvenir;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
 
 /**
  * Manages the data by providing methods to save and load a list of manufacturers using object serialization.
+ * <p>
+ * Snapshots are never written over the live file in place: each save goes to a temporary sibling file,
+ * is forced to disk and then atomically moved over the live file, so a crash leaves either the old or
+ * the new snapshot intact. Concurrent saves are grouped so that one fsync covers all of them.
+ * <p>
+ * The serialized graph is split into fixed-size blocks, each stored through a {@link SnapshotCodec}.
+ * Blocks are compressed and decompressed in parallel. Files written before blocks were introduced
+ * (a bare serialization stream) are still readable.
+ * <p>
+ * A snapshot is a checkpoint: it records the sequence number of the last {@link Mutation} it includes.
+ * Mutations made after it are appended to a {@link Journal} next to the data file, so a restart reads the
+ * checkpoint and replays only the journal tail. Saving a new checkpoint empties the journal.
+ * <p>
+ * The header of a snapshot also records catalog statistics: the number of manufacturers and souvenirs and
+ * the price and release year ranges. {@link #readHeader()} reads them without touching the rest of the file.
+ * <p>
+ * Every checkpoint also rebuilds a {@link NameFilter} in a sibling {@code .bloom} file, so existence checks
+ * by name can be answered without loading the catalog.
  */
 public class DataManager {
 
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String BLOOM_SUFFIX = ".bloom";
+
+    private static final int MAGIC = 0x53565331; // "SVS1"
+    private static final short FORMAT_VERSION = 3;
+    private static final int V1_HEADER_SIZE = 4 + 2 + 1 + 1 + 4 + 4;
+    private static final int V2_HEADER_SIZE = V1_HEADER_SIZE + 8;
+    private static final int HEADER_SIZE = V2_HEADER_SIZE + 4 + 4 + 8 + 8 + 4 + 4;
+    private static final int BLOCK_FRAME_SIZE = 4 + 4;
+    private static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+    private static final short SERIALIZATION_MAGIC = (short) 0xACED;
+    private static final int BLOOM_MAGIC = 0x53564246; // "SVBF"
+    private static final short BLOOM_FORMAT_VERSION = 1;
+    private static final double DEFAULT_BLOOM_FALSE_POSITIVE_RATE = 0.01;
+    private static final int THROTTLED_WRITE_CHUNK = 64 * 1024;
+
     private final String filename;
+    private final SnapshotCodec codec;
+    private final int blockSize;
+    private final Journal journal;
+
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final Condition commitDone = commitLock.newCondition();
+    private volatile long requestedGeneration;
+    private long durableGeneration;
+    private long failedGeneration;
+    private IOException failure;
+    private boolean writing;
+    private long writingSequence;
+    private long writingGeneration;
+    private long durableSequence = -1; // none written yet
+    private ByteBuffer[] pendingSnapshot;
+    private long pendingSequence;
+    private NameFilter pendingFilter;
+    private IoRateLimiter pendingLimiter;
+    private volatile double bloomFalsePositiveRate = DEFAULT_BLOOM_FALSE_POSITIVE_RATE;
+
+    /**
+     * The contents of a checkpoint.
+     *
+     * @param manufacturers The list of manufacturers, or null if there is no readable checkpoint.
+     * @param sequence      The sequence number of the last mutation included in the checkpoint.
+     */
+    public record Snapshot(List<Manufacturer> manufacturers, long sequence) {
+    }
+
+    /**
+     * The header of a checkpoint. Files written before format version 3 carry no statistics.
+     *
+     * @param formatVersion     The format version of the file; 0 for an empty file or a bare serialization stream.
+     * @param sequence          The sequence number of the last mutation included in the checkpoint.
+     * @param manufacturerCount The number of manufacturers.
+     * @param souvenirCount     The number of souvenirs.
+     * @param minPrice          The lowest souvenir price amount, in whatever currency; meaningless without souvenirs.
+     * @param maxPrice          The highest souvenir price amount.
+     * @param minYear           The earliest release year; meaningless without dated souvenirs.
+     * @param maxYear           The latest release year.
+     */
+    public record Header(int formatVersion, long sequence, int manufacturerCount, int souvenirCount,
+                         double minPrice, double maxPrice, int minYear, int maxYear) {
+
+        private static final Header EMPTY = new Header(0, 0, 0, 0, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Integer.MAX_VALUE, Integer.MIN_VALUE);
+
+        /**
+         * Checks whether the header carries catalog statistics.
+         *
+         * @return true for an empty file or a file of format version 3 or later.
+         */
+        public boolean hasStatistics() {
+            return formatVersion >= 3 || this == EMPTY;
+        }
+
+        /**
+         * Checks whether the checkpoint holds no manufacturers. Only meaningful with {@link #hasStatistics()}.
+         *
+         * @return true if the checkpoint is empty.
+         */
+        public boolean isEmpty() {
+            return manufacturerCount == 0;
+        }
+
+        /**
+         * Checks whether some souvenir in the checkpoint may be cheaper than a limit.
+         *
+         * @param priceLimit The exclusive limit, as an amount in any currency.
+         * @return false if every souvenir is certainly priced at or above the limit.
+         */
+        public boolean mayHavePriceBelow(double priceLimit) {
+            return !hasStatistics() || minPrice < priceLimit;
+        }
+
+        /**
+         * Checks whether some souvenir in the checkpoint may have been released in a year.
+         *
+         * @param year The release year.
+         * @return false if the year is certainly outside the checkpoint's range of release years.
+         */
+        public boolean mayHaveYear(int year) {
+            return !hasStatistics() || (year >= minYear && year <= maxYear);
+        }
+    }
 
     /**
-     * Constructs a DataManager with the specified filename.
+     * Constructs a DataManager with the specified filename and the default deflate codec.
      *
      * @param filename The name of the file to be used for saving and loading data.
      */
     public DataManager(String filename) {
+        this(filename, SnapshotCodec.DEFAULT);
+    }
+
+    /**
+     * Constructs a DataManager with the specified filename and codec.
+     *
+     * @param filename The name of the file to be used for saving and loading data.
+     * @param codec    The codec used for new snapshots. Use {@link SnapshotCodec#NONE} to disable compression.
+     */
+    public DataManager(String filename, SnapshotCodec codec) {
+        this(filename, codec, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructs a DataManager with the specified filename, codec and block size.
+     *
+     * @param filename  The name of the file to be used for saving and loading data.
+     * @param codec     The codec used for new snapshots.
+     * @param blockSize The uncompressed size of each block; larger blocks compress better, smaller ones
+     *                  spread a load across more threads.
+     */
+    public DataManager(String filename, SnapshotCodec codec, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
         this.filename = filename;
+        this.codec = codec;
+        this.blockSize = blockSize;
         checkAndCreateFile();
+        try {
+            this.journal = new Journal(journalPath());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't open journal for " + filename, e);
+        }
+    }
+
+    /**
+     * Gets the journal holding the mutations made since the last checkpoint.
+     *
+     * @return The journal.
+     */
+    public Journal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Sets the false-positive rate the name filters are sized for. It takes effect with the next checkpoint,
+     * or the next {@link #loadNameFilter()} if the persisted filters were sized for a different rate.
+     * Lower rates cost more bits per name: about 10 at 1%, 14 at 0.1%.
+     *
+     * @param falsePositiveRate The rate, between 0 and 1. The default is 0.01.
+     */
+    public void setBloomFalsePositiveRate(double falsePositiveRate) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+        this.bloomFalsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Gets the false-positive rate the name filters are sized for.
+     *
+     * @return The rate.
+     */
+    public double getBloomFalsePositiveRate() {
+        return bloomFalsePositiveRate;
+    }
+
+    /**
+     * Gets the size of the data file.
+     *
+     * @return The size in bytes, or 0 if the file can't be read.
+     */
+    public long getDataFileSize() {
+        try {
+            return Files.size(livePath());
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Gets the name of the data file.
+     *
+     * @return The name of the data file.
+     */
+    public String getFilename() {
+        return filename;
     }
 
     /**
      * Checks if the file exists and creates it if it doesn't.
      */
     private void checkAndCreateFile() {
+        deleteStaleTempFile();
         if (!fileExists(filename)) {
             createFile(filename);
             System.out.println("New file created: " + filename);
@@ -63,29 +282,599 @@ public class DataManager {
     }
 
     /**
-     * Saves a list of manufacturers to the specified file using object serialization.
+     * Removes a temporary snapshot left behind by a save that was interrupted by a crash.
+     * The live file is untouched by such a save, so the leftover is simply discarded.
+     */
+    private void deleteStaleTempFile() {
+        try {
+            if (Files.deleteIfExists(tempPath())) {
+                System.out.println("Discarded incomplete snapshot: " + tempPath());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private Path livePath() {
+        return Paths.get(filename).toAbsolutePath();
+    }
+
+    private Path journalPath() {
+        Path live = livePath();
+        return live.resolveSibling(live.getFileName() + JOURNAL_SUFFIX);
+    }
+
+    private Path tempPath() {
+        Path live = livePath();
+        return live.resolveSibling(live.getFileName() + TEMP_SUFFIX);
+    }
+
+    private Path bloomPath() {
+        Path live = livePath();
+        return live.resolveSibling(live.getFileName() + BLOOM_SUFFIX);
+    }
+
+    /**
+     * Saves a list of manufacturers to the specified file as a checkpoint covering every mutation
+     * recorded in the journal so far. The checkpoint takes a new sequence number of its own, so it
+     * replaces any earlier checkpoint even if no mutation was recorded since.
      *
      * @param manufacturers The list of manufacturers to be saved.
      */
     public void saveData(List<Manufacturer> manufacturers) {
-        try (ObjectOutputStream outputStream = new ObjectOutputStream(new FileOutputStream(filename))) {
+        saveData(manufacturers, journal.reserve());
+    }
+
+    /**
+     * Saves a list of manufacturers to the specified file using object serialization, as a checkpoint
+     * covering the mutations up to the given sequence number. Once the checkpoint is durable, the journal
+     * is emptied if it holds nothing newer.
+     * <p>
+     * The list is serialized on the calling thread, so the caller may keep mutating it once this method
+     * returns. The method blocks until a snapshot at least as new as this one is durable on disk. If another
+     * thread is already writing, this call waits for it and then writes the newest pending snapshot on behalf
+     * of every caller that queued up meanwhile (group commit). If that write fails, every caller it was
+     * written for gets the error.
+     * <p>
+     * Checkpoints only move forward: a snapshot whose sequence number is not newer than one already written,
+     * being written or queued is not written, since replacing the newer checkpoint would drop the journal
+     * records between the two. The call then waits for the newer one, if it isn't durable yet.
+     *
+     * @param manufacturers The list of manufacturers to be saved.
+     * @param sequence      The sequence number of the last mutation reflected in the list.
+     * @return false if the snapshot was skipped because a checkpoint at least as new was already queued.
+     * @throws UncheckedIOException If the snapshot can't be serialized or written.
+     */
+    public boolean saveData(List<Manufacturer> manufacturers, long sequence) {
+        return saveData(manufacturers, sequence, null);
+    }
+
+    /**
+     * Saves a checkpoint like {@link #saveData(List, long)}, pacing the write with a rate limiter so that
+     * a background checkpoint doesn't take the disk away from foreground work. A throttled write yields to
+     * any save queued while it runs: it is abandoned, and the newer snapshot, which covers at least as many
+     * mutations, is written at full speed in its place.
+     *
+     * @param manufacturers The list of manufacturers to be saved.
+     * @param sequence      The sequence number of the last mutation reflected in the list.
+     * @param limiter       The rate limiter, or null to write at full speed.
+     * @return false if the snapshot was skipped because a checkpoint at least as new was already queued.
+     * @throws UncheckedIOException If the snapshot can't be serialized or written.
+     */
+    public boolean saveData(List<Manufacturer> manufacturers, long sequence, IoRateLimiter limiter) {
+        ByteBuffer[] snapshot;
+        try {
+            snapshot = encode(serialize(manufacturers), header(manufacturers, sequence));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't serialize snapshot for " + filename, e);
+        }
+        NameFilter filter = NameFilter.build(manufacturers, bloomFalsePositiveRate, sequence);
+
+        commitLock.lock();
+        try {
+            if (sequence <= durableSequence) {
+                return false;
+            }
+            long generation;
+            boolean queued = false;
+            if (pendingSnapshot != null && pendingSequence >= sequence) {
+                generation = requestedGeneration;
+            } else if (writing && writingSequence >= sequence) {
+                generation = writingGeneration;
+            } else {
+                generation = ++requestedGeneration;
+                pendingSnapshot = snapshot;
+                pendingSequence = sequence;
+                pendingFilter = filter;
+                pendingLimiter = limiter;
+                queued = true;
+            }
+            while (durableGeneration < generation) {
+                if (failedGeneration >= generation) {
+                    throw new UncheckedIOException("Can't write data file " + filename, failure);
+                }
+                if (writing) {
+                    commitDone.awaitUninterruptibly();
+                    continue;
+                }
+                writing = true;
+                ByteBuffer[] batch = pendingSnapshot;
+                long batchSequence = pendingSequence;
+                NameFilter batchFilter = pendingFilter;
+                IoRateLimiter batchLimiter = pendingLimiter;
+                long batchGeneration = requestedGeneration;
+                writingSequence = batchSequence;
+                writingGeneration = batchGeneration;
+                pendingSnapshot = null;
+                pendingFilter = null;
+                pendingLimiter = null;
+                commitLock.unlock();
+                boolean written = false;
+                IOException error = null;
+                try {
+                    written = writeAtomically(batch, batchLimiter, batchGeneration);
+                } catch (IOException e) {
+                    error = e;
+                }
+                try {
+                    if (written) {
+                        journal.checkpointed(batchSequence);
+                        writeNameFilter(batchFilter);
+                    }
+                } finally {
+                    commitLock.lock();
+                    writing = false;
+                    if (written) {
+                        durableGeneration = batchGeneration;
+                        durableSequence = batchSequence;
+                    } else if (error != null) {
+                        failedGeneration = batchGeneration;
+                        failure = error;
+                    }
+                    commitDone.signalAll();
+                }
+            }
+            return queued;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private byte[] serialize(List<Manufacturer> manufacturers) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream outputStream = new ObjectOutputStream(bytes)) {
             outputStream.writeObject(manufacturers);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Collects the statistics recorded in the header of a checkpoint.
+     *
+     * @param manufacturers The list of manufacturers to be saved.
+     * @param sequence      The sequence number of the last mutation reflected in the list.
+     * @return The header.
+     */
+    private static Header header(List<Manufacturer> manufacturers, long sequence) {
+        int souvenirCount = 0;
+        double minPrice = Double.POSITIVE_INFINITY;
+        double maxPrice = Double.NEGATIVE_INFINITY;
+        int minYear = Integer.MAX_VALUE;
+        int maxYear = Integer.MIN_VALUE;
+        for (Manufacturer manufacturer : manufacturers) {
+            for (Souvenir souvenir : manufacturer.getSouvenirs()) {
+                souvenirCount++;
+                minPrice = Math.min(minPrice, souvenir.getPrice());
+                maxPrice = Math.max(maxPrice, souvenir.getPrice());
+                if (souvenir.getReleaseDate() != null) {
+                    minYear = Math.min(minYear, souvenir.getReleaseDate().getYear());
+                    maxYear = Math.max(maxYear, souvenir.getReleaseDate().getYear());
+                }
+            }
+        }
+        return new Header(FORMAT_VERSION, sequence, manufacturers.size(), souvenirCount,
+                minPrice, maxPrice, minYear, maxYear);
+    }
+
+    /**
+     * Splits the serialized graph into blocks and compresses them in parallel.
+     *
+     * @param serialized The serialized graph.
+     * @param statistics The checkpoint sequence number and catalog statistics recorded in the header.
+     * @return The header followed by one frame and one payload buffer per block, ready for a gathering write.
+     */
+    private ByteBuffer[] encode(byte[] serialized, Header statistics) {
+        int blockCount = (serialized.length + blockSize - 1) / blockSize;
+        byte[][] stored = new byte[blockCount][];
+        IntStream.range(0, blockCount).parallel().forEach(i -> {
+            int offset = i * blockSize;
+            stored[i] = codec.compress(serialized, offset, Math.min(blockSize, serialized.length - offset));
+        });
+
+        ByteBuffer[] buffers = new ByteBuffer[1 + 2 * blockCount];
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putShort(FORMAT_VERSION).put(codec.id()).put((byte) codec.level())
+                .putInt(blockSize).putInt(blockCount).putLong(statistics.sequence())
+                .putInt(statistics.manufacturerCount()).putInt(statistics.souvenirCount())
+                .putDouble(statistics.minPrice()).putDouble(statistics.maxPrice())
+                .putInt(statistics.minYear()).putInt(statistics.maxYear()).flip();
+        buffers[0] = header;
+        for (int i = 0; i < blockCount; i++) {
+            int rawLength = Math.min(blockSize, serialized.length - i * blockSize);
+            ByteBuffer frame = ByteBuffer.allocate(BLOCK_FRAME_SIZE);
+            frame.putInt(rawLength).putInt(stored[i].length).flip();
+            buffers[1 + 2 * i] = frame;
+            buffers[2 + 2 * i] = ByteBuffer.wrap(stored[i]);
+        }
+        return buffers;
+    }
+
+    /**
+     * Reads the block frames of a snapshot and decompresses them in parallel, each straight from its slice
+     * of the file buffer.
+     *
+     * @param file     The whole snapshot file.
+     * @param sequence  Receives the checkpoint sequence number.
+     * @return The serialized graph as a stream over the decompressed blocks.
+     * @throws IOException If the snapshot is truncated or corrupt.
+     */
+    private InputStream decode(ByteBuffer file, long[] sequence) throws IOException {
+        if (file.remaining() < V1_HEADER_SIZE || file.getInt() != MAGIC) {
+            throw new IOException("Not a snapshot file");
+        }
+        short version = file.getShort();
+        if (version < 1 || version > FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot format version: " + version);
+        }
+        SnapshotCodec storedCodec = SnapshotCodec.forId(file.get(), file.get());
+        int storedBlockSize = file.getInt();
+        int blockCount = file.getInt();
+        if (version >= 2 && file.remaining() < V2_HEADER_SIZE - V1_HEADER_SIZE) {
+            throw new IOException("Truncated snapshot header");
+        }
+        sequence[0] = version >= 2 ? file.getLong() : 0;
+        if (version >= 3) {
+            if (file.remaining() < HEADER_SIZE - V2_HEADER_SIZE) {
+                throw new IOException("Truncated snapshot header");
+            }
+            file.position(file.position() + HEADER_SIZE - V2_HEADER_SIZE); // statistics, see readHeader()
+        }
+        if (storedBlockSize <= 0) {
+            throw new IOException("Corrupt snapshot header: block size " + storedBlockSize);
+        }
+        if (blockCount < 0 || blockCount > file.remaining() / BLOCK_FRAME_SIZE) {
+            throw new IOException("Corrupt snapshot header: " + blockCount + " blocks in "
+                    + file.remaining() + " bytes");
+        }
+
+        int[] rawLengths = new int[blockCount];
+        ByteBuffer[] stored = new ByteBuffer[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            if (file.remaining() < BLOCK_FRAME_SIZE) {
+                throw new IOException("Truncated snapshot: block " + i + " of " + blockCount);
+            }
+            rawLengths[i] = file.getInt();
+            int storedLength = file.getInt();
+            if (rawLengths[i] < 0 || rawLengths[i] > storedBlockSize) {
+                throw new IOException("Corrupt snapshot: block " + i + " claims " + rawLengths[i]
+                        + " bytes, block size is " + storedBlockSize);
+            }
+            if (storedLength < 0 || file.remaining() < storedLength) {
+                throw new IOException("Truncated snapshot: block " + i + " of " + blockCount);
+            }
+            stored[i] = file.slice(file.position(), storedLength);
+            file.position(file.position() + storedLength);
+        }
+
+        byte[][] blocks = new byte[blockCount][];
+        IOException[] failure = new IOException[1];
+        IntStream.range(0, blockCount).parallel().forEach(i -> {
+            try {
+                blocks[i] = storedCodec.decompress(stored[i], rawLengths[i]);
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+
+        List<InputStream> streams = new ArrayList<>(blockCount);
+        for (byte[] block : blocks) {
+            streams.add(new ByteArrayInputStream(block));
+        }
+        return new SequenceInputStream(Collections.enumeration(streams));
+    }
+
+    /**
+     * Writes the snapshot to a temporary file, forces it to disk and moves it over the live file.
+     *
+     * @param snapshot   The serialized snapshot.
+     * @param limiter    Paces the write, or null to write at full speed.
+     * @param generation The generation of the snapshot; a throttled write stops once a newer one is queued.
+     * @return true if the snapshot was written, false if a throttled write was abandoned for a newer snapshot.
+     * @throws IOException If the snapshot can't be written or moved into place.
+     */
+    private boolean writeAtomically(ByteBuffer[] snapshot, IoRateLimiter limiter, long generation) throws IOException {
+        Path live = livePath();
+        Path temp = tempPath();
+        boolean written = true;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (limiter == null) {
+                ByteBuffer last = snapshot[snapshot.length - 1];
+                while (last.hasRemaining()) {
+                    channel.write(snapshot);
+                }
+            } else {
+                written = writeThrottled(channel, snapshot, limiter, generation);
+            }
+            if (written) {
+                channel.force(true);
+            }
+        }
+        if (!written) {
+            Files.deleteIfExists(temp);
+            return false;
+        }
+        try {
+            Files.move(temp, live, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, live, StandardCopyOption.REPLACE_EXISTING);
+        }
+        forceDirectory(live.getParent());
+        return true;
+    }
+
+    /**
+     * Writes the buffers in chunks, taking tokens from the limiter before each one.
+     *
+     * @return false if a newer snapshot was queued before the write finished.
+     */
+    private boolean writeThrottled(FileChannel channel, ByteBuffer[] snapshot, IoRateLimiter limiter,
+                                   long generation) throws IOException {
+        for (ByteBuffer buffer : snapshot) {
+            while (buffer.hasRemaining()) {
+                if (requestedGeneration > generation) {
+                    return false;
+                }
+                int length = Math.min(THROTTLED_WRITE_CHUNK, buffer.remaining());
+                limiter.acquire(length);
+                ByteBuffer chunk = buffer.slice(buffer.position(), length);
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+                buffer.position(buffer.position() + length);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the name filters next to the data file, replacing the previous ones atomically. The filters are
+     * only a cache of the snapshot, so they aren't forced to disk: a stale or torn file is detected by its
+     * sequence number or checksum and rebuilt.
+     *
+     * @param filter The filters of the checkpoint just written.
+     */
+    private void writeNameFilter(NameFilter filter) {
+        try {
+            writeNameFilterFile(filter);
         } catch (IOException e) {
-            e.printStackTrace();
+            System.out.println("Can't write name filter '" + bloomPath() + "': " + e);
+        }
+    }
+
+    private void writeNameFilterFile(NameFilter filter) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(body)) {
+            filter.writeTo(out);
+        }
+        byte[] bytes = body.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+
+        Path bloom = bloomPath();
+        Path temp = bloom.resolveSibling(bloom.getFileName() + TEMP_SUFFIX);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(BLOOM_MAGIC);
+            out.writeShort(BLOOM_FORMAT_VERSION);
+            out.writeInt((int) crc.getValue());
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        try {
+            Files.move(temp, bloom, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, bloom, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads the persisted name filters.
+     *
+     * @return The filters, or null if the file is missing, unreadable or corrupt.
+     */
+    private NameFilter readNameFilter() {
+        Path bloom = bloomPath();
+        if (!Files.exists(bloom)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(bloom)))) {
+            if (in.readInt() != BLOOM_MAGIC || in.readShort() != BLOOM_FORMAT_VERSION) {
+                return null;
+            }
+            int checksum = in.readInt();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            if ((int) crc.getValue() != checksum) {
+                System.out.println("Discarding corrupt name filter: " + bloom);
+                return null;
+            }
+            return NameFilter.readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Can't read name filter '" + bloom + "': " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Loads the name filters of the latest checkpoint, extended with the names the journal has added since.
+     * Only the snapshot header is read, unless the filters are missing, corrupt, older than the checkpoint or
+     * sized for a different false-positive rate; then they are rebuilt from the snapshot and persisted again.
+     * <p>
+     * The result is a copy for the caller; it doesn't follow mutations made after this call.
+     *
+     * @return The filters.
+     */
+    public NameFilter loadNameFilter() {
+        NameFilter filter = readNameFilter();
+        Header header = readHeader();
+        if (filter == null || header == null || filter.getSequence() != header.sequence()
+                || filter.getFalsePositiveRate() != bloomFalsePositiveRate) {
+            Snapshot snapshot = loadSnapshot();
+            List<Manufacturer> manufacturers = snapshot.manufacturers() != null ? snapshot.manufacturers() : List.of();
+            filter = NameFilter.build(manufacturers, bloomFalsePositiveRate, snapshot.sequence());
+            writeNameFilter(filter);
+        }
+        try {
+            for (Journal.Entry entry : journal.read(filter.getSequence())) {
+                filter.add(entry);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read journal for " + filename, e);
+        }
+        return filter;
+    }
+
+    /**
+     * Reads the header of the latest checkpoint, without reading the rest of the file.
+     *
+     * @return The header; an empty file has an empty header with statistics, and files older than format
+     * version 3 have one without. Null if the file can't be read or isn't a snapshot.
+     */
+    public Header readHeader() {
+        try (FileChannel channel = FileChannel.open(livePath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Fill the header, or stop at the end of a short file.
+            }
+            header.flip();
+            if (header.remaining() == 0) {
+                return Header.EMPTY;
+            }
+            if (isLegacyFormat(header)) {
+                return new Header(0, 0, 0, 0, 0, 0, 0, 0);
+            }
+            if (header.remaining() < V1_HEADER_SIZE || header.getInt(0) != MAGIC) {
+                return null;
+            }
+            short version = header.getShort(4);
+            if (version < 2) {
+                return new Header(version, 0, 0, 0, 0, 0, 0, 0);
+            }
+            if (version == 2) {
+                return header.remaining() < V2_HEADER_SIZE ? null
+                        : new Header(version, header.getLong(V1_HEADER_SIZE), 0, 0, 0, 0, 0, 0);
+            }
+            if (version > FORMAT_VERSION || header.remaining() < HEADER_SIZE) {
+                return null;
+            }
+            header.position(V1_HEADER_SIZE);
+            return new Header(version, header.getLong(), header.getInt(), header.getInt(),
+                    header.getDouble(), header.getDouble(), header.getInt(), header.getInt());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Makes the rename itself durable. Not every platform allows opening a directory, so failures are ignored.
+     *
+     * @param directory The directory holding the live file.
+     */
+    private void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directory sync is best effort.
         }
     }
 
     /**
      * Loads a list of manufacturers from the specified file using object deserialization.
+     * Mutations recorded in the journal after the checkpoint are not applied.
      *
-     * @return The list of manufacturers loaded from the file.
+     * @return The list of manufacturers loaded from the file, or null if the file is empty or unreadable.
      */
     public List<Manufacturer> loadData() {
-        try (ObjectInputStream inputStream = new ObjectInputStream(new FileInputStream(filename))) {
-            return (List<Manufacturer>) inputStream.readObject();
+        return loadSnapshot().manufacturers();
+    }
+
+    /**
+     * Loads the latest checkpoint. The file is memory-mapped rather than copied onto the heap,
+     * and its blocks are decompressed straight from the mapping.
+     *
+     * @return The checkpoint; its list is null if the file is empty or unreadable.
+     */
+    public Snapshot loadSnapshot() {
+        ByteBuffer file;
+        try (FileChannel channel = FileChannel.open(livePath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return new Snapshot(null, 0);
+            }
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException e) {
+            System.out.println("Can't read data file '" + filename + "': " + e);
+            return new Snapshot(null, 0);
+        }
+        long[] sequence = new long[1];
+        try (ObjectInputStream inputStream = new ObjectInputStream(isLegacyFormat(file)
+                ? new ByteBufferInputStream(file)
+                : decode(file, sequence))) {
+            return new Snapshot((List<Manufacturer>) inputStream.readObject(), sequence[0]);
         } catch (IOException | ClassNotFoundException e) {
-//            e.printStackTrace();
-            return null;
+            System.out.println("Can't read data file '" + filename + "': " + e);
+            return new Snapshot(null, 0);
+        }
+    }
+
+    /**
+     * Checks whether the file is a bare serialization stream, as written before snapshots had a header.
+     *
+     * @param file The whole snapshot file.
+     * @return true if the file starts with the Java serialization magic.
+     */
+    private boolean isLegacyFormat(ByteBuffer file) {
+        return file.remaining() >= 2 && file.getShort(file.position()) == SERIALIZATION_MAGIC;
+    }
+
+    /**
+     * Reads a byte buffer, such as a file mapping, as a stream.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
         }
     }
 }
@@ -0,0 +1,71 @@
+package org.example.storage;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A token bucket that paces writes to a number of bytes per second. Tokens accumulate up to a burst size
+ * while the writer is idle; a writer that asks for more than is available goes into debt and sleeps until
+ * the bucket has refilled, so the long-run rate never exceeds the configured one.
+ */
+public final class IoRateLimiter {
+
+    private final long bytesPerSecond;
+    private final long burstBytes;
+    private double tokens;
+    private long refilledAt;
+
+    /**
+     * Constructs a limiter whose burst is a tenth of a second's worth of bytes.
+     *
+     * @param bytesPerSecond The sustained rate.
+     */
+    public IoRateLimiter(long bytesPerSecond) {
+        this(bytesPerSecond, Math.max(1, bytesPerSecond / 10));
+    }
+
+    /**
+     * Constructs a limiter.
+     *
+     * @param bytesPerSecond The sustained rate.
+     * @param burstBytes     The number of bytes that may be written at once after an idle period.
+     */
+    public IoRateLimiter(long bytesPerSecond, long burstBytes) {
+        if (bytesPerSecond <= 0 || burstBytes <= 0) {
+            throw new IllegalArgumentException("Rate and burst must be positive: " + bytesPerSecond + ", " + burstBytes);
+        }
+        this.bytesPerSecond = bytesPerSecond;
+        this.burstBytes = burstBytes;
+        this.tokens = burstBytes;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Gets the sustained rate.
+     *
+     * @return The rate in bytes per second.
+     */
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Takes tokens for a write, sleeping as long as the rate requires.
+     *
+     * @param bytes The size of the write.
+     */
+    public void acquire(long bytes) {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            tokens = Math.min(burstBytes, tokens + (now - refilledAt) * (bytesPerSecond / 1e9));
+            refilledAt = now;
+            tokens -= bytes;
+            waitNanos = tokens < 0 ? (long) (-tokens / bytesPerSecond * TimeUnit.SECONDS.toNanos(1)) : 0;
+        }
+        long deadline = System.nanoTime() + waitNanos;
+        for (long left = waitNanos; left > 0; left = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(left);
+        }
+    }
+}
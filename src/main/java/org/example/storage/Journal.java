@@ -0,0 +1,382 @@
+package org.example.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the {@link Mutation}s made since the last checkpoint.
+ * <p>
+ * Each record is framed as {@code [length][crc32][sequence][serialized mutation]}. A record torn by a crash
+ * fails its length or checksum test and is cut off, together with everything after it, when the journal is
+ * recovered. Appending only hands the record to the operating system; {@link #sync(long)} makes it durable,
+ * and concurrent syncs are grouped so one fsync covers every record written before it started.
+ * <p>
+ * A checkpoint that covers only part of the journal, because mutations were recorded while it was being
+ * written, rewrites the records it doesn't cover into a fresh file and swaps it in atomically.
+ */
+public class Journal implements AutoCloseable {
+
+    private static final int FRAME_HEADER_SIZE = 4 + 4 + 8;
+    private static final String COMPACT_SUFFIX = ".compact";
+
+    /**
+     * A mutation together with the sequence number it was recorded under.
+     *
+     * @param sequence The sequence number, increasing by one per mutation.
+     * @param mutation The recorded mutation.
+     */
+    public record Entry(long sequence, Mutation mutation) {
+    }
+
+    private final Path path;
+    private volatile FileChannel channel;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition syncDone = syncLock.newCondition();
+    private boolean syncing;
+    private long durableSequence;
+
+    private volatile long lastSequence;
+    private long checkpointSequence;
+
+    /**
+     * Opens or creates the journal file.
+     *
+     * @param path The journal file.
+     * @throws IOException If the file can't be opened.
+     */
+    public Journal(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Gets the journal file.
+     *
+     * @return The journal file.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the sequence number of the newest recorded mutation.
+     *
+     * @return The last sequence number.
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Gets the number of mutations recorded since the last checkpoint.
+     *
+     * @return The number of mutations.
+     */
+    public synchronized long getEntriesSinceCheckpoint() {
+        return lastSequence - checkpointSequence;
+    }
+
+    /**
+     * Gets the current size of the journal file.
+     *
+     * @return The size in bytes.
+     */
+    public long size() {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Reads the mutations recorded after a checkpoint and truncates any torn tail.
+     *
+     * @param checkpointSequence The sequence number covered by the checkpoint; older entries are skipped.
+     * @return The entries to replay, in order.
+     * @throws IOException If the journal can't be read.
+     */
+    public synchronized List<Entry> recover(long checkpointSequence) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        long size = channel.size();
+        long position = scan(checkpointSequence, size, entries);
+        long last = entries.isEmpty() ? checkpointSequence : entries.get(entries.size() - 1).sequence();
+        if (position < size) {
+            System.out.println("Discarding torn journal tail: " + (size - position) + " bytes");
+            channel.truncate(position);
+            channel.force(true);
+        }
+        channel.position(position);
+        this.checkpointSequence = checkpointSequence;
+        this.lastSequence = last;
+        syncLock.lock();
+        try {
+            durableSequence = last;
+        } finally {
+            syncLock.unlock();
+        }
+        return entries;
+    }
+
+    /**
+     * Reads the intact mutations recorded after a sequence number, without changing the journal.
+     *
+     * @param afterSequence Entries up to and including this sequence number are skipped.
+     * @return The entries, in order.
+     * @throws IOException If the journal can't be read.
+     */
+    public synchronized List<Entry> read(long afterSequence) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        scan(afterSequence, channel.size(), entries);
+        return entries;
+    }
+
+    /**
+     * Collects the entries newer than a sequence number, up to the first torn or corrupt record.
+     *
+     * @return The position after the last intact record.
+     */
+    private long scan(long afterSequence, long size, List<Entry> entries) throws IOException {
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        while (position + FRAME_HEADER_SIZE <= size) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            long sequence = header.getLong();
+            if (length < 0 || position + FRAME_HEADER_SIZE + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            channel.read(payload, position + FRAME_HEADER_SIZE);
+            crc.reset();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            if (sequence > afterSequence) {
+                entries.add(new Entry(sequence, deserialize(payload.array())));
+            }
+            position += FRAME_HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    /**
+     * Appends a mutation. The record reaches the operating system but is not durable until {@link #sync(long)}.
+     *
+     * @param mutation The mutation to record.
+     * @return The sequence number assigned to the mutation.
+     */
+    public synchronized long append(Mutation mutation) {
+        byte[] payload = serialize(mutation);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        long sequence = lastSequence + 1;
+        ByteBuffer record = ByteBuffer.allocate(FRAME_HEADER_SIZE + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).putLong(sequence).put(payload).flip();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't append to journal " + path, e);
+        }
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    /**
+     * Takes the next sequence number without recording a mutation, for a checkpoint of a catalog that was
+     * replaced as a whole. The number is newer than every earlier checkpoint and mutation.
+     *
+     * @return The sequence number.
+     */
+    public synchronized long reserve() {
+        return ++lastSequence;
+    }
+
+    /**
+     * Blocks until the mutation with the given sequence number is durable. If another thread is already
+     * syncing, waits for it and then syncs once on behalf of everyone who appended meanwhile.
+     *
+     * @param sequence The sequence number returned by {@link #append(Mutation)}.
+     */
+    public void sync(long sequence) {
+        syncLock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (syncing) {
+                    syncDone.awaitUninterruptibly();
+                    continue;
+                }
+                syncing = true;
+                long target = lastSequence;
+                syncLock.unlock();
+                try {
+                    channel.force(false);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Can't sync journal " + path, e);
+                } finally {
+                    syncLock.lock();
+                    syncing = false;
+                    durableSequence = Math.max(durableSequence, target);
+                    syncDone.signalAll();
+                }
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Drops the records covered by a checkpoint once it is durable: the journal is emptied if the checkpoint
+     * covers every recorded mutation, and otherwise rewritten to hold only the newer records.
+     * Sequence numbers keep increasing across checkpoints; a checkpoint older than the last one is ignored,
+     * as the records it would keep are already gone.
+     *
+     * @param checkpointSequence The sequence number covered by the checkpoint.
+     */
+    public synchronized void checkpointed(long checkpointSequence) {
+        if (checkpointSequence < this.checkpointSequence) {
+            return;
+        }
+        try {
+            if (checkpointSequence >= lastSequence) {
+                channel.truncate(0);
+                channel.position(0);
+                channel.force(true);
+            } else if (checkpointSequence > this.checkpointSequence) {
+                rewriteFrom(positionAfter(checkpointSequence));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't truncate journal " + path, e);
+        }
+        this.checkpointSequence = checkpointSequence;
+        syncLock.lock();
+        try {
+            durableSequence = Math.max(durableSequence, checkpointSequence);
+            syncDone.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Finds the first record newer than a sequence number.
+     *
+     * @return Its position, or the end of the journal if there is none.
+     */
+    private long positionAfter(long sequence) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+        while (position + FRAME_HEADER_SIZE <= size) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            int length = header.getInt();
+            header.getInt();
+            if (header.getLong() > sequence) {
+                break;
+            }
+            position += FRAME_HEADER_SIZE + length;
+        }
+        return Math.min(position, size);
+    }
+
+    /**
+     * Copies the records from a position on into a fresh file, forces it and moves it over the journal.
+     * Appends are held off by the caller; a running sync is waited for, so no fsync targets the old file
+     * once it has been replaced.
+     */
+    private void rewriteFrom(long position) throws IOException {
+        if (position == 0) {
+            return;
+        }
+        long size = channel.size();
+        Path temp = path.resolveSibling(path.getFileName() + COMPACT_SUFFIX);
+        FileChannel compacted = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            long copied = 0;
+            while (copied < size - position) {
+                copied += channel.transferTo(position + copied, size - position - copied, compacted);
+            }
+            compacted.force(true);
+            compacted.position(copied);
+        } catch (IOException e) {
+            compacted.close();
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        syncLock.lock();
+        try {
+            while (syncing) {
+                syncDone.awaitUninterruptibly();
+            }
+            try {
+                try {
+                    Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                compacted.close();
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            FileChannel old = channel;
+            channel = compacted;
+            old.close();
+            durableSequence = lastSequence;
+            syncDone.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static byte[] serialize(Mutation mutation) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(mutation);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't serialize mutation " + mutation, e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Mutation deserialize(byte[] payload) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return (Mutation) in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown mutation type in journal", e);
+        }
+    }
+}
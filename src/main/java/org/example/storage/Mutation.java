@@ -0,0 +1,78 @@
+package org.example.storage;
+
+import org.example.entities.Manufacturer;
+import org.example.entities.Money;
+import org.example.entities.Souvenir;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A single change to the catalog, as recorded in the {@link Journal}. Replaying the mutations recorded
+ * after a checkpoint on top of that checkpoint reproduces the catalog.
+ */
+public sealed interface Mutation extends Serializable {
+
+    /**
+     * Gets the name of the manufacturer the mutation applies to, before the mutation.
+     *
+     * @return The manufacturer name.
+     */
+    String manufacturerName();
+
+    record AddManufacturer(Manufacturer manufacturer) implements Mutation {
+        @Override
+        public String manufacturerName() {
+            return manufacturer.getName();
+        }
+    }
+
+    record RemoveManufacturer(String manufacturerName) implements Mutation {
+    }
+
+    record RenameManufacturer(String manufacturerName, String newName) implements Mutation {
+    }
+
+    record ChangeManufacturerCountry(String manufacturerName, String newCountry) implements Mutation {
+    }
+
+    record AddSouvenir(String manufacturerName, Souvenir souvenir) implements Mutation {
+    }
+
+    record RemoveSouvenir(String manufacturerName, String souvenirName) implements Mutation {
+    }
+
+    record RenameSouvenir(String manufacturerName, String souvenirName, String newName) implements Mutation {
+    }
+
+    record ChangeSouvenirDetails(String manufacturerName, String souvenirName, String newDetails) implements Mutation {
+    }
+
+    record ChangeSouvenirReleaseDate(String manufacturerName, String souvenirName, LocalDateTime newReleaseDate) implements Mutation {
+    }
+
+    record ChangeSouvenirPrice(String manufacturerName, String souvenirName, Money newPrice) implements Mutation {
+    }
+
+    /**
+     * Several mutations recorded as one journal entry, so a bulk operation is made durable by a single
+     * append and sync, and is replayed either completely or not at all.
+     */
+    record Batch(List<Mutation> mutations) implements Mutation {
+
+        public Batch {
+            mutations = List.copyOf(mutations);
+        }
+
+        /**
+         * A batch may span manufacturers, so it has no single manufacturer name.
+         *
+         * @return null.
+         */
+        @Override
+        public String manufacturerName() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.example.storage;
+
+import org.example.entities.Manufacturer;
+import org.example.entities.Souvenir;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bloom filters over the manufacturer names and the (manufacturer, souvenir) names of a catalog, persisted by
+ * {@link DataManager} next to its data file. They answer "does this name exist?" without loading the catalog:
+ * a negative answer is certain, so only probable hits need a real lookup.
+ * <p>
+ * The filters are rebuilt with every checkpoint and extended with the names the journal has added since.
+ * Names that are renamed or removed stay in the filters until the next checkpoint, which only costs false
+ * positives. A renamed manufacturer's souvenirs can't be re-keyed without the catalog, so souvenir checks
+ * for such a manufacturer always answer "maybe".
+ */
+public final class NameFilter {
+
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private final BloomFilter manufacturers;
+    private final BloomFilter souvenirs;
+    private long sequence;
+    private final double falsePositiveRate;
+    private final Set<String> renamedManufacturers = new HashSet<>();
+
+    private NameFilter(BloomFilter manufacturers, BloomFilter souvenirs, long sequence, double falsePositiveRate) {
+        this.manufacturers = manufacturers;
+        this.souvenirs = souvenirs;
+        this.sequence = sequence;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Builds the filters for a catalog.
+     *
+     * @param catalog           The manufacturers with their souvenirs.
+     * @param falsePositiveRate The false-positive rate to size the filters for.
+     * @param sequence          The sequence number of the last mutation reflected in the catalog.
+     * @return The filters.
+     */
+    public static NameFilter build(List<Manufacturer> catalog, double falsePositiveRate, long sequence) {
+        long souvenirCount = 0;
+        for (Manufacturer manufacturer : catalog) {
+            souvenirCount += manufacturer.getSouvenirs().size();
+        }
+        NameFilter filter = new NameFilter(BloomFilter.create(catalog.size(), falsePositiveRate),
+                BloomFilter.create(souvenirCount, falsePositiveRate), sequence, falsePositiveRate);
+        catalog.forEach(filter::addManufacturer);
+        return filter;
+    }
+
+    /**
+     * Checks whether a manufacturer with the specified name may exist.
+     *
+     * @param manufacturerName The name of the manufacturer.
+     * @return false if it certainly doesn't exist; true if it probably does.
+     */
+    public boolean mightContainManufacturer(String manufacturerName) {
+        return manufacturers.mightContain(manufacturerName);
+    }
+
+    /**
+     * Checks whether the specified manufacturer may have a souvenir with the specified name.
+     *
+     * @param manufacturerName The name of the manufacturer.
+     * @param souvenirName     The name of the souvenir.
+     * @return false if it certainly doesn't exist; true if it probably does.
+     */
+    public boolean mightContainSouvenir(String manufacturerName, String souvenirName) {
+        return renamedManufacturers.contains(manufacturerName)
+                || souvenirs.mightContain(souvenirKey(manufacturerName, souvenirName));
+    }
+
+    /**
+     * Gets the sequence number of the newest mutation the filters reflect.
+     *
+     * @return The sequence number.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the false-positive rate the filters were sized for.
+     *
+     * @return The false-positive rate.
+     */
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    /**
+     * Adds the names a journaled mutation introduces. Keeps a loaded filter current with the mutations
+     * journaled after {@link DataManager#loadNameFilter()}.
+     *
+     * @param entry The journal entry.
+     */
+    public void add(Journal.Entry entry) {
+        sequence = entry.sequence();
+        add(entry.mutation());
+    }
+
+    private void add(Mutation mutation) {
+        if (mutation instanceof Mutation.Batch batch) {
+            batch.mutations().forEach(this::add);
+        } else if (mutation instanceof Mutation.AddManufacturer add) {
+            addManufacturer(add.manufacturer());
+        } else if (mutation instanceof Mutation.RenameManufacturer rename) {
+            manufacturers.put(rename.newName());
+            renamedManufacturers.add(rename.newName());
+        } else if (mutation instanceof Mutation.AddSouvenir add) {
+            souvenirs.put(souvenirKey(add.manufacturerName(), add.souvenir().getName()));
+        } else if (mutation instanceof Mutation.RenameSouvenir rename) {
+            souvenirs.put(souvenirKey(rename.manufacturerName(), rename.newName()));
+        }
+    }
+
+    private void addManufacturer(Manufacturer manufacturer) {
+        manufacturers.put(manufacturer.getName());
+        for (Souvenir souvenir : manufacturer.getSouvenirs()) {
+            souvenirs.put(souvenirKey(manufacturer.getName(), souvenir.getName()));
+        }
+    }
+
+    private static String souvenirKey(String manufacturerName, String souvenirName) {
+        return manufacturerName + KEY_SEPARATOR + souvenirName;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeLong(sequence);
+        out.writeDouble(falsePositiveRate);
+        manufacturers.writeTo(out);
+        souvenirs.writeTo(out);
+    }
+
+    static NameFilter readFrom(DataInputStream in) throws IOException {
+        long sequence = in.readLong();
+        double falsePositiveRate = in.readDouble();
+        return new NameFilter(BloomFilter.readFrom(in), BloomFilter.readFrom(in), sequence, falsePositiveRate);
+    }
+}
@@ -0,0 +1,178 @@
+package org.example.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses and decompresses the blocks of a snapshot written by {@link DataManager}.
+ * The codec id and level are stored in the snapshot header, so a file can always be read back
+ * regardless of the codec the reading DataManager was configured with.
+ */
+public abstract class SnapshotCodec {
+
+    static final byte NONE_ID = 0;
+    static final byte DEFLATE_ID = 1;
+
+    /**
+     * Stores blocks as they are.
+     */
+    public static final SnapshotCodec NONE = new NoCompression();
+
+    /**
+     * Deflate with the default zlib level.
+     */
+    public static final SnapshotCodec DEFAULT = deflate(Deflater.DEFAULT_COMPRESSION);
+
+    /**
+     * Creates a codec using {@link Deflater} with the given level.
+     *
+     * @param level The compression level, from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION},
+     *              or {@link Deflater#DEFAULT_COMPRESSION}.
+     * @return The deflate codec.
+     */
+    public static SnapshotCodec deflate(int level) {
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Deflate level must be between 0 and 9: " + level);
+        }
+        return new DeflateCodec(level);
+    }
+
+    /**
+     * Resolves the codec recorded in a snapshot header.
+     *
+     * @param id    The codec id.
+     * @param level The codec level.
+     * @return The matching codec.
+     * @throws IOException If the id is unknown.
+     */
+    static SnapshotCodec forId(byte id, int level) throws IOException {
+        return switch (id) {
+            case NONE_ID -> NONE;
+            case DEFLATE_ID -> new DeflateCodec(level);
+            default -> throw new IOException("Unknown snapshot codec: " + id);
+        };
+    }
+
+    abstract byte id();
+
+    abstract int level();
+
+    /**
+     * Compresses one block.
+     *
+     * @param source The buffer holding the block.
+     * @param offset The block start.
+     * @param length The block length.
+     * @return The stored form of the block.
+     */
+    abstract byte[] compress(byte[] source, int offset, int length);
+
+    /**
+     * Restores one block.
+     *
+     * @param stored    The stored form of the block, e.g. a slice of a file mapping; it is read to its end.
+     * @param rawLength The length of the original block.
+     * @return The original block.
+     * @throws IOException If the block is corrupt.
+     */
+    abstract byte[] decompress(ByteBuffer stored, int rawLength) throws IOException;
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(level = " + level() + ")";
+    }
+
+    private static final class NoCompression extends SnapshotCodec {
+        @Override
+        byte id() {
+            return NONE_ID;
+        }
+
+        @Override
+        int level() {
+            return 0;
+        }
+
+        @Override
+        byte[] compress(byte[] source, int offset, int length) {
+            byte[] block = new byte[length];
+            System.arraycopy(source, offset, block, 0, length);
+            return block;
+        }
+
+        @Override
+        byte[] decompress(ByteBuffer stored, int rawLength) throws IOException {
+            if (stored.remaining() != rawLength) {
+                throw new IOException("Corrupt block: expected " + rawLength + " bytes, found " + stored.remaining());
+            }
+            byte[] block = new byte[rawLength];
+            stored.get(block);
+            return block;
+        }
+    }
+
+    private static final class DeflateCodec extends SnapshotCodec {
+        private final int level;
+
+        private DeflateCodec(int level) {
+            this.level = level;
+        }
+
+        @Override
+        byte id() {
+            return DEFLATE_ID;
+        }
+
+        @Override
+        int level() {
+            return level;
+        }
+
+        @Override
+        byte[] compress(byte[] source, int offset, int length) {
+            Deflater deflater = new Deflater(level);
+            try {
+                deflater.setInput(source, offset, length);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, length / 4));
+                byte[] chunk = new byte[64 * 1024];
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(chunk);
+                    out.write(chunk, 0, n);
+                }
+                return out.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        @Override
+        byte[] decompress(ByteBuffer stored, int rawLength) throws IOException {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(stored);
+                byte[] block = new byte[rawLength];
+                int filled = 0;
+                while (filled < rawLength && !inflater.finished()) {
+                    int n = inflater.inflate(block, filled, rawLength - filled);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    filled += n;
+                }
+                if (filled != rawLength) {
+                    throw new IOException("Corrupt block: expected " + rawLength + " bytes, inflated " + filled);
+                }
+                return block;
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt block", e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+}